@@ -0,0 +1,91 @@
+package ai.titli.darbiter.bench;
+
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.StructuredField;
+import ai.titli.darbiter.service.DetectionService;
+import ai.titli.darbiter.service.RuleSetSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link DetectionService} over free text, structured fields and
+ * files on disk, per bundled ruleset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectionBenchmark {
+    @Param({"pii_baseline.yaml", "secrets_baseline.yaml", "config_risk_baseline.yaml", "combined_baseline.yaml"})
+    public String ruleset;
+
+    @Param({"1000", "50000"})
+    public int lines;
+
+    @Param({"0.01", "0.2"})
+    public double density;
+
+    private final Set<FindingCategory> categories = EnumSet.allOf(FindingCategory.class);
+    private DetectionService detectionService;
+    private RuleSetSnapshot ruleSet;
+    private String text;
+    private List<StructuredField> fields;
+    private Path directory;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        detectionService = BenchmarkFixtures.detectionService();
+        ruleSet = BenchmarkFixtures.ruleSetLoader().load(ruleset);
+        text = BenchmarkFixtures.text(lines, density, 42L);
+        fields = BenchmarkFixtures.fields(lines, density, 42L);
+        directory = BenchmarkFixtures.tempDirectory();
+        file = directory.resolve("corpus.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        // Compile the ruleset outside the measured region.
+        detectionService.detectText("warmup", ruleSet, categories, "warmup");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.delete(directory);
+    }
+
+    @Benchmark
+    public List<Finding> detectText() {
+        return detectionService.detectText(text, ruleSet, categories, "corpus.txt");
+    }
+
+    @Benchmark
+    public List<Finding> detectStructured() {
+        return detectionService.detectStructured(fields, ruleSet, categories, "corpus.json");
+    }
+
+    @Benchmark
+    public List<Finding> detectPath() {
+        return detectionService.detect(file, ruleSet, categories, 0L);
+    }
+}
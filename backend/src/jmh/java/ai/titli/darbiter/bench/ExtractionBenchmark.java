@@ -0,0 +1,146 @@
+package ai.titli.darbiter.bench;
+
+import ai.titli.darbiter.model.StructuredField;
+import ai.titli.darbiter.service.FileContentExtractor;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured extraction of generated JSON, YAML, CSV and XLSX files holding
+ * {@code records} records of {@link #COLUMNS} fields each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+    private static final String[] COLUMNS = {"id", "name", "email", "notes", "region", "token"};
+
+    @Param({"json", "yaml", "csv", "xlsx"})
+    public String format;
+
+    @Param({"100", "5000"})
+    public int records;
+
+    @Param({"0.01", "0.2"})
+    public double density;
+
+    private FileContentExtractor extractor;
+    private Path directory;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        extractor = BenchmarkFixtures.contentExtractor();
+        directory = BenchmarkFixtures.tempDirectory();
+        file = directory.resolve("records." + format);
+        Random random = new Random(42L);
+        switch (format) {
+            case "json" -> writeJson(random);
+            case "yaml" -> writeYaml(random);
+            case "csv" -> writeCsv(random);
+            case "xlsx" -> writeXlsx(random);
+            default -> throw new IllegalStateException("Unsupported format: " + format);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.delete(directory);
+    }
+
+    @Benchmark
+    public List<StructuredField> extractStructured() {
+        return extractor.extractStructured(file);
+    }
+
+    private void writeJson(Random random) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\"records\":[\n");
+            for (int r = 0; r < records; r++) {
+                writer.write(r == 0 ? "{" : ",{");
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    writer.write((c == 0 ? "\"" : ",\"") + COLUMNS[c] + "\":\"" + escape(value(random)) + "\"");
+                }
+                writer.write("}\n");
+            }
+            writer.write("]}\n");
+        }
+    }
+
+    private void writeYaml(Random random) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("records:\n");
+            for (int r = 0; r < records; r++) {
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    writer.write((c == 0 ? "  - " : "    ") + COLUMNS[c] + ": '"
+                            + value(random).replace("'", "''") + "'\n");
+                }
+            }
+        }
+    }
+
+    private void writeCsv(Random random) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", COLUMNS) + "\n");
+            for (int r = 0; r < records; r++) {
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    writer.write((c == 0 ? "\"" : ",\"") + value(random).replace("\"", "\"\"") + "\"");
+                }
+                writer.write("\n");
+            }
+        }
+    }
+
+    private void writeXlsx(Random random) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             OutputStream out = Files.newOutputStream(file)) {
+            XSSFSheet sheet = workbook.createSheet("records");
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                header.createCell(c).setCellValue(COLUMNS[c]);
+            }
+            for (int r = 0; r < records; r++) {
+                Row row = sheet.createRow(r + 1);
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    row.createCell(c).setCellValue(value(random));
+                }
+            }
+            workbook.write(out);
+        }
+    }
+
+    private String value(Random random) {
+        return BenchmarkFixtures.value(random, density);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
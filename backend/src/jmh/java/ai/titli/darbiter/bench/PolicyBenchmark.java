@@ -0,0 +1,73 @@
+package ai.titli.darbiter.bench;
+
+import ai.titli.darbiter.model.EligibilityDecision;
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.RemediationGroup;
+import ai.titli.darbiter.model.RemediationItem;
+import ai.titli.darbiter.model.RiskSummary;
+import ai.titli.darbiter.service.EligibilityEvaluator;
+import ai.titli.darbiter.service.RemediationGroups;
+import ai.titli.darbiter.service.RemediationService;
+import ai.titli.darbiter.service.RiskClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Risk classification, eligibility evaluation and remediation over large
+ * finding lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyBenchmark {
+    @Param({"1000", "100000"})
+    public int findings;
+
+    private final RiskClassifier riskClassifier = new RiskClassifier();
+    private final EligibilityEvaluator eligibilityEvaluator = new EligibilityEvaluator();
+    private final RemediationService remediationService = new RemediationService();
+    private List<Finding> corpus;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        corpus = BenchmarkFixtures.findings(findings, 42L);
+    }
+
+    @Benchmark
+    public RiskSummary summarize() {
+        return riskClassifier.summarize(corpus);
+    }
+
+    @Benchmark
+    public EligibilityDecision evaluate() {
+        return eligibilityEvaluator.evaluate(corpus, false);
+    }
+
+    @Benchmark
+    public List<RemediationItem> recommend() {
+        return remediationService.recommend(corpus);
+    }
+
+    @Benchmark
+    public List<RemediationGroup> groupRemediation() {
+        RemediationGroups groups = new RemediationGroups();
+        groups.addAll(corpus);
+        return groups.toList();
+    }
+}
@@ -0,0 +1,62 @@
+package ai.titli.darbiter.bench;
+
+import ai.titli.darbiter.model.AIUsage;
+import ai.titli.darbiter.model.ScanResult;
+import ai.titli.darbiter.service.EligibilityEvaluator;
+import ai.titli.darbiter.service.RemediationGroups;
+import ai.titli.darbiter.service.ReportService;
+import ai.titli.darbiter.service.RiskClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML report rendering for scan results of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+    @Param({"1000", "20000"})
+    public int findings;
+
+    private final ReportService reportService = new ReportService();
+    private ScanResult result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        result = new ScanResult();
+        result.setScanId("bench");
+        result.setRuleset("Combined Baseline (1.0)");
+        result.setUsage(AIUsage.INFERENCE);
+        result.setStartedAt(Instant.now());
+        result.setFinishedAt(Instant.now());
+        result.setFindings(BenchmarkFixtures.findings(findings, 42L));
+        result.setRiskSummary(new RiskClassifier().summarize(result.getFindings()));
+        result.setDecision(new EligibilityEvaluator().evaluate(result.getFindings(), false));
+        result.setEligibility(result.getDecision().getStatus());
+        RemediationGroups remediation = new RemediationGroups();
+        remediation.addAll(result.getFindings());
+        result.setRemediationGroups(remediation.toList());
+    }
+
+    @Benchmark
+    public String toHtml() {
+        return reportService.toHtml(result);
+    }
+}
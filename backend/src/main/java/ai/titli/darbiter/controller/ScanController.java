@@ -3,50 +3,67 @@ package ai.titli.darbiter.controller;
 import ai.titli.darbiter.model.AIUsage;
 import ai.titli.darbiter.model.Certificate;
 import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.FindingFilter;
+import ai.titli.darbiter.model.FindingPage;
 import ai.titli.darbiter.model.PathScanRequest;
+import ai.titli.darbiter.model.RiskLevel;
 import ai.titli.darbiter.model.RuleSetInfo;
+import ai.titli.darbiter.model.ScanJob;
 import ai.titli.darbiter.model.ScanResult;
+import ai.titli.darbiter.model.ScanStatus;
 import ai.titli.darbiter.model.TextScanRequest;
 import ai.titli.darbiter.service.PdfCertificateService;
 import ai.titli.darbiter.service.PdfSummaryReportService;
 import ai.titli.darbiter.service.ReportService;
 import ai.titli.darbiter.service.RuleSetCatalog;
+import ai.titli.darbiter.service.ScanJobService;
 import ai.titli.darbiter.service.ScanService;
 import ai.titli.darbiter.service.ScanStore;
+import ai.titli.darbiter.service.ScanStreamWriter;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class ScanController {
     private final ScanService scanService;
+    private final ScanJobService scanJobService;
     private final ScanStore scanStore;
     private final RuleSetCatalog ruleSetCatalog;
     private final ReportService reportService;
     private final PdfCertificateService pdfCertificateService;
     private final PdfSummaryReportService pdfSummaryReportService;
+    private final ScanStreamWriter scanStreamWriter;
 
     public ScanController(ScanService scanService,
+                          ScanJobService scanJobService,
                           ScanStore scanStore,
                           RuleSetCatalog ruleSetCatalog,
                           ReportService reportService,
                           PdfCertificateService pdfCertificateService,
-                          PdfSummaryReportService pdfSummaryReportService) {
+                          PdfSummaryReportService pdfSummaryReportService,
+                          ScanStreamWriter scanStreamWriter) {
         this.scanService = scanService;
+        this.scanJobService = scanJobService;
         this.scanStore = scanStore;
         this.ruleSetCatalog = ruleSetCatalog;
         this.reportService = reportService;
         this.pdfCertificateService = pdfCertificateService;
         this.pdfSummaryReportService = pdfSummaryReportService;
+        this.scanStreamWriter = scanStreamWriter;
     }
 
     @PostMapping("/scan/path")
@@ -54,13 +71,32 @@ public class ScanController {
         return scanService.scanPath(request);
     }
 
+    @PostMapping("/scan/path/async")
+    public ResponseEntity<ScanJob> submitPathScan(@Valid @RequestBody PathScanRequest request) {
+        try {
+            return ResponseEntity.accepted().body(scanJobService.submit(request));
+        } catch (RejectedExecutionException ex) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+    }
+
+    @PostMapping(value = "/scan/path/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPathScan(@Valid @RequestBody PathScanRequest request) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> scanStreamWriter.writeScan(request, out));
+    }
+
     @PostMapping(value = "/scan/files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ScanResult scanFiles(@RequestParam("files") List<MultipartFile> files,
                                 @RequestParam(value = "approvedForAi", defaultValue = "false") boolean approvedForAi,
                                 @RequestParam(value = "ruleset", defaultValue = "combined_baseline.yaml") String ruleset,
                                 @RequestParam(value = "usage", defaultValue = "INFERENCE") AIUsage usage,
-                                @RequestParam(value = "categories", required = false) String categories) {
-        return scanService.scanFiles(files, approvedForAi, ruleset, parseCategories(categories), usage);
+                                @RequestParam(value = "categories", required = false) String categories,
+                                @RequestParam(value = "perFindingRemediation", defaultValue = "false")
+                                boolean perFindingRemediation) {
+        return scanService.scanFiles(files, approvedForAi, ruleset, parseCategories(categories), usage,
+                perFindingRemediation);
     }
 
     @PostMapping("/scan/text")
@@ -69,8 +105,69 @@ public class ScanController {
     }
 
     @GetMapping("/scan/{scanId}")
-    public ResponseEntity<ScanResult> getScan(@PathVariable String scanId) {
-        return scanStore.find(scanId)
+    public ResponseEntity<?> getScan(@PathVariable String scanId) {
+        Optional<ScanResult> result = scanStore.find(scanId);
+        if (result.isPresent()) {
+            return ResponseEntity.ok(result.get());
+        }
+        return scanJobService.status(scanId)
+                .<ResponseEntity<?>>map(job -> isPending(job)
+                        ? ResponseEntity.accepted().body(job)
+                        : ResponseEntity.ok(job))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** Only a job that may still produce a result is reported as 202. */
+    private static boolean isPending(ScanJob job) {
+        return job.getStatus() == ScanStatus.QUEUED || job.getStatus() == ScanStatus.RUNNING;
+    }
+
+    @GetMapping("/scan/{scanId}/findings")
+    public ResponseEntity<FindingPage> getFindings(@PathVariable String scanId,
+                                                   @RequestParam(value = "category", required = false) FindingCategory category,
+                                                   @RequestParam(value = "severity", required = false) RiskLevel severity,
+                                                   @RequestParam(value = "ruleId", required = false) String ruleId,
+                                                   @RequestParam(value = "pathPrefix", required = false) String pathPrefix,
+                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                   @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int from;
+        try {
+            from = cursor == null || cursor.isBlank() ? 0 : Integer.parseInt(cursor);
+        } catch (NumberFormatException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (scanStore.isStreamOnly(scanId)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        FindingFilter filter = new FindingFilter(category, severity, ruleId, pathPrefix);
+        return scanStore.findPage(scanId, filter, from, limit)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/scan/{scanId}/findings/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFindings(@PathVariable String scanId) {
+        if (!scanStore.contains(scanId)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (scanStore.isStreamOnly(scanId)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> scanStreamWriter.writeStored(scanId, out));
+    }
+
+    @GetMapping("/scan/{scanId}/status")
+    public ResponseEntity<ScanJob> getScanStatus(@PathVariable String scanId) {
+        return scanJobService.status(scanId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/scan/{scanId}")
+    public ResponseEntity<ScanJob> cancelScan(@PathVariable String scanId) {
+        return scanJobService.cancel(scanId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -83,7 +180,9 @@ public class ScanController {
     @GetMapping(value = "/report/{scanId}", produces = MediaType.TEXT_HTML_VALUE)
     public ResponseEntity<String> report(@PathVariable String scanId) {
         return scanStore.find(scanId)
-                .map(result -> ResponseEntity.ok(reportService.toHtml(result)))
+                .map(result -> result.isFindingsStreamed()
+                        ? ResponseEntity.status(HttpStatus.GONE).<String>build()
+                        : ResponseEntity.ok(reportService.toHtml(result)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -113,9 +212,11 @@ public class ScanController {
     @GetMapping(value = "/summary/{scanId}/pdf", produces = "application/pdf")
     public ResponseEntity<byte[]> summaryPdf(@PathVariable String scanId) {
         return scanStore.find(scanId)
-                .map(result -> ResponseEntity.ok()
-                        .header("Content-Disposition", "attachment; filename=\"darbiter-summary.pdf\"")
-                        .body(pdfSummaryReportService.generate(result)))
+                .map(result -> result.isFindingsStreamed()
+                        ? ResponseEntity.status(HttpStatus.GONE).<byte[]>build()
+                        : ResponseEntity.ok()
+                                .header("Content-Disposition", "attachment; filename=\"darbiter-summary.pdf\"")
+                                .body(pdfSummaryReportService.generate(result)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
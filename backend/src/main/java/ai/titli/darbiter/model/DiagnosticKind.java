@@ -0,0 +1,9 @@
+package ai.titli.darbiter.model;
+
+public enum DiagnosticKind {
+    RULE_TIMEOUT,
+    RULE_DISABLED,
+    FILE_ERROR,
+    EXTRACTION_ERROR,
+    ARCHIVE_LIMIT
+}
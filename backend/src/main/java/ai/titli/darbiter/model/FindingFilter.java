@@ -0,0 +1,54 @@
+package ai.titli.darbiter.model;
+
+/**
+ * Optional criteria for paging through a stored scan's findings; unset fields
+ * match everything.
+ */
+public class FindingFilter {
+    private FindingCategory category;
+    private RiskLevel severity;
+    private String ruleId;
+    private String pathPrefix;
+
+    public FindingFilter() {
+    }
+
+    public FindingFilter(FindingCategory category, RiskLevel severity, String ruleId, String pathPrefix) {
+        this.category = category;
+        this.severity = severity;
+        this.ruleId = ruleId;
+        this.pathPrefix = pathPrefix;
+    }
+
+    public FindingCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(FindingCategory category) {
+        this.category = category;
+    }
+
+    public RiskLevel getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(RiskLevel severity) {
+        this.severity = severity;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    public void setPathPrefix(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+}
@@ -0,0 +1,30 @@
+package ai.titli.darbiter.model;
+
+public class FindingLocation {
+    private String filePath;
+    private int lineNumber;
+
+    public FindingLocation() {
+    }
+
+    public FindingLocation(String filePath, int lineNumber) {
+        this.filePath = filePath;
+        this.lineNumber = lineNumber;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+}
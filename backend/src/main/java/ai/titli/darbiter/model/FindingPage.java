@@ -0,0 +1,44 @@
+package ai.titli.darbiter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FindingPage {
+    private String scanId;
+    private List<Finding> findings = new ArrayList<>();
+    private String nextCursor;
+
+    public FindingPage() {
+    }
+
+    public FindingPage(String scanId, List<Finding> findings, String nextCursor) {
+        this.scanId = scanId;
+        this.findings = findings;
+        this.nextCursor = nextCursor;
+    }
+
+    public String getScanId() {
+        return scanId;
+    }
+
+    public void setScanId(String scanId) {
+        this.scanId = scanId;
+    }
+
+    public List<Finding> getFindings() {
+        return findings;
+    }
+
+    public void setFindings(List<Finding> findings) {
+        this.findings = findings == null ? new ArrayList<>() : findings;
+    }
+
+    /** Cursor for the following page, or {@code null} on the last page. */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
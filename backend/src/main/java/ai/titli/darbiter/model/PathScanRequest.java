@@ -10,6 +10,10 @@ public class PathScanRequest {
     private String ruleset = "combined_baseline.yaml";
     private AIUsage usage = AIUsage.INFERENCE;
     private java.util.Set<FindingCategory> categories = java.util.EnumSet.allOf(FindingCategory.class);
+    private Integer parallelism;
+    private Long maxBytesPerFile;
+    private boolean incremental;
+    private boolean perFindingRemediation;
 
     public String getPath() {
         return path;
@@ -60,4 +64,36 @@ public class PathScanRequest {
                 ? java.util.EnumSet.allOf(FindingCategory.class)
                 : categories;
     }
+
+    public Integer getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public Long getMaxBytesPerFile() {
+        return maxBytesPerFile;
+    }
+
+    public void setMaxBytesPerFile(Long maxBytesPerFile) {
+        this.maxBytesPerFile = maxBytesPerFile;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isPerFindingRemediation() {
+        return perFindingRemediation;
+    }
+
+    public void setPerFindingRemediation(boolean perFindingRemediation) {
+        this.perFindingRemediation = perFindingRemediation;
+    }
 }
@@ -0,0 +1,84 @@
+package ai.titli.darbiter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remediation for every finding of one rule: how many there were, a few
+ * sample locations and the recommended actions.
+ */
+public class RemediationGroup {
+    private String ruleId;
+    private String label;
+    private FindingCategory category;
+    private RiskLevel severity;
+    private long count;
+    private List<FindingLocation> samples = new ArrayList<>();
+    private List<String> actions = new ArrayList<>();
+
+    public RemediationGroup() {
+    }
+
+    public RemediationGroup(String ruleId, String label, FindingCategory category, RiskLevel severity) {
+        this.ruleId = ruleId;
+        this.label = label;
+        this.category = category;
+        this.severity = severity;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public FindingCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(FindingCategory category) {
+        this.category = category;
+    }
+
+    public RiskLevel getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(RiskLevel severity) {
+        this.severity = severity;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public List<FindingLocation> getSamples() {
+        return samples;
+    }
+
+    public void setSamples(List<FindingLocation> samples) {
+        this.samples = samples == null ? new ArrayList<>() : samples;
+    }
+
+    public List<String> getActions() {
+        return actions;
+    }
+
+    public void setActions(List<String> actions) {
+        this.actions = actions == null ? new ArrayList<>() : actions;
+    }
+}
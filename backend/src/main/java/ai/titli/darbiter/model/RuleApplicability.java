@@ -0,0 +1,65 @@
+package ai.titli.darbiter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional predicates restricting where a rule runs. Empty include lists mean
+ * "everywhere"; exclude lists win over include lists.
+ */
+public class RuleApplicability {
+    private List<String> files = new ArrayList<>();
+    private List<String> excludeFiles = new ArrayList<>();
+    private List<String> extensions = new ArrayList<>();
+    private List<String> excludeExtensions = new ArrayList<>();
+    private List<String> paths = new ArrayList<>();
+    private int minLineLength;
+
+    public List<String> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<String> files) {
+        this.files = files;
+    }
+
+    public List<String> getExcludeFiles() {
+        return excludeFiles;
+    }
+
+    public void setExcludeFiles(List<String> excludeFiles) {
+        this.excludeFiles = excludeFiles;
+    }
+
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    public void setExtensions(List<String> extensions) {
+        this.extensions = extensions;
+    }
+
+    public List<String> getExcludeExtensions() {
+        return excludeExtensions;
+    }
+
+    public void setExcludeExtensions(List<String> excludeExtensions) {
+        this.excludeExtensions = excludeExtensions;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public int getMinLineLength() {
+        return minLineLength;
+    }
+
+    public void setMinLineLength(int minLineLength) {
+        this.minLineLength = minLineLength;
+    }
+}
@@ -6,6 +6,7 @@ public class RulePattern {
     private String regex;
     private RiskLevel severity;
     private FindingCategory category;
+    private RuleApplicability applicability;
 
     public RulePattern() {
     }
@@ -49,4 +50,12 @@ public class RulePattern {
     public void setCategory(FindingCategory category) {
         this.category = category;
     }
+
+    public RuleApplicability getApplicability() {
+        return applicability;
+    }
+
+    public void setApplicability(RuleApplicability applicability) {
+        this.applicability = applicability;
+    }
 }
@@ -1,5 +1,7 @@
 package ai.titli.darbiter.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,6 +9,8 @@ public class RuleSet {
     private String version;
     private String name;
     private List<RulePattern> patterns = new ArrayList<>();
+    @JsonIgnore
+    private String fingerprint;
 
     public RuleSet() {
     }
@@ -34,4 +38,13 @@ public class RuleSet {
     public void setPatterns(List<RulePattern> patterns) {
         this.patterns = patterns == null ? new ArrayList<>() : patterns;
     }
+
+    /** Content hash of the source file, set by the ruleset registry. */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
 }
@@ -0,0 +1,50 @@
+package ai.titli.darbiter.model;
+
+public class ScanDiagnostic {
+    private DiagnosticKind kind;
+    private String source;
+    private String ruleId;
+    private String message;
+
+    public ScanDiagnostic() {
+    }
+
+    public ScanDiagnostic(DiagnosticKind kind, String source, String ruleId, String message) {
+        this.kind = kind;
+        this.source = source;
+        this.ruleId = ruleId;
+        this.message = message;
+    }
+
+    public DiagnosticKind getKind() {
+        return kind;
+    }
+
+    public void setKind(DiagnosticKind kind) {
+        this.kind = kind;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -14,7 +14,12 @@ public class ScanResult {
     private RiskSummary riskSummary;
     private AIEligibilityStatus eligibility;
     private EligibilityDecision decision;
+    private List<RemediationGroup> remediationGroups = new ArrayList<>();
     private List<RemediationItem> remediation = new ArrayList<>();
+    private long filesScanned;
+    private long cacheHits;
+    private List<ScanDiagnostic> diagnostics = new ArrayList<>();
+    private boolean findingsStreamed;
 
     public String getScanId() {
         return scanId;
@@ -88,6 +93,15 @@ public class ScanResult {
         this.decision = decision;
     }
 
+    public List<RemediationGroup> getRemediationGroups() {
+        return remediationGroups;
+    }
+
+    public void setRemediationGroups(List<RemediationGroup> remediationGroups) {
+        this.remediationGroups = remediationGroups == null ? new ArrayList<>() : remediationGroups;
+    }
+
+    /** Per-finding remediation; empty unless the scan request asked for it. */
     public List<RemediationItem> getRemediation() {
         return remediation;
     }
@@ -95,4 +109,40 @@ public class ScanResult {
     public void setRemediation(List<RemediationItem> remediation) {
         this.remediation = remediation == null ? new ArrayList<>() : remediation;
     }
+
+    public long getFilesScanned() {
+        return filesScanned;
+    }
+
+    public void setFilesScanned(long filesScanned) {
+        this.filesScanned = filesScanned;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public void setCacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+
+    public List<ScanDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public void setDiagnostics(List<ScanDiagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * True when the findings were streamed to the client as the scan ran and
+     * not kept; {@link #getFindings()} is then empty.
+     */
+    public boolean isFindingsStreamed() {
+        return findingsStreamed;
+    }
+
+    public void setFindingsStreamed(boolean findingsStreamed) {
+        this.findingsStreamed = findingsStreamed;
+    }
 }
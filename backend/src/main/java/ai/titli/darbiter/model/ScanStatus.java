@@ -0,0 +1,9 @@
+package ai.titli.darbiter.model;
+
+public enum ScanStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,90 @@
+package ai.titli.darbiter.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of an NDJSON findings stream: {@code started} (scan id), then one
+ * {@code finding} per finding, then {@code summary} (the result without its
+ * finding list) or {@code error}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScanStreamEvent {
+    private String type;
+    private String scanId;
+    private Finding finding;
+    private ScanResult result;
+    private String message;
+
+    public ScanStreamEvent() {
+    }
+
+    public static ScanStreamEvent started(String scanId) {
+        ScanStreamEvent event = new ScanStreamEvent();
+        event.setType("started");
+        event.setScanId(scanId);
+        return event;
+    }
+
+    public static ScanStreamEvent finding(Finding finding) {
+        ScanStreamEvent event = new ScanStreamEvent();
+        event.setType("finding");
+        event.setFinding(finding);
+        return event;
+    }
+
+    public static ScanStreamEvent summary(ScanResult result) {
+        ScanStreamEvent event = new ScanStreamEvent();
+        event.setType("summary");
+        event.setScanId(result.getScanId());
+        event.setResult(result);
+        return event;
+    }
+
+    public static ScanStreamEvent error(String scanId, String message) {
+        ScanStreamEvent event = new ScanStreamEvent();
+        event.setType("error");
+        event.setScanId(scanId);
+        event.setMessage(message);
+        return event;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getScanId() {
+        return scanId;
+    }
+
+    public void setScanId(String scanId) {
+        this.scanId = scanId;
+    }
+
+    public Finding getFinding() {
+        return finding;
+    }
+
+    public void setFinding(Finding finding) {
+        this.finding = finding;
+    }
+
+    public ScanResult getResult() {
+        return result;
+    }
+
+    public void setResult(ScanResult result) {
+        this.result = result;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -12,6 +12,7 @@ public class TextScanRequest {
     private String ruleset = "combined_baseline.yaml";
     private AIUsage usage = AIUsage.INFERENCE;
     private Set<FindingCategory> categories = EnumSet.allOf(FindingCategory.class);
+    private boolean perFindingRemediation;
 
     public String getContent() {
         return content;
@@ -54,4 +55,12 @@ public class TextScanRequest {
                 ? EnumSet.allOf(FindingCategory.class)
                 : categories;
     }
+
+    public boolean isPerFindingRemediation() {
+        return perFindingRemediation;
+    }
+
+    public void setPerFindingRemediation(boolean perFindingRemediation) {
+        this.perFindingRemediation = perFindingRemediation;
+    }
 }
@@ -0,0 +1,147 @@
+package ai.titli.darbiter.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Case-insensitive Aho-Corasick automaton compiled to a dense DFA. Each keyword
+ * carries an int payload; scanning reports the payloads of every keyword that
+ * occurs in the input. Immutable once built.
+ */
+final class AhoCorasick {
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final int alphabetSize;
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    AhoCorasick(List<String> keywords, List<int[]> payloads) {
+        int nextClass = 1;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                if (classOf(c) == 0) {
+                    if (c < 128) {
+                        asciiClasses[c] = nextClass++;
+                    } else {
+                        otherClasses.put(c, nextClass++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = nextClass;
+
+        List<int[]> gotoRows = new ArrayList<>();
+        List<int[]> stateOutputs = new ArrayList<>();
+        gotoRows.add(newRow());
+        stateOutputs.add(NO_OUTPUT);
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int cls = classOf(Character.toLowerCase(keyword.charAt(i)));
+                int next = gotoRows.get(state)[cls];
+                if (next < 0) {
+                    next = gotoRows.size();
+                    gotoRows.add(newRow());
+                    stateOutputs.add(NO_OUTPUT);
+                    gotoRows.get(state)[cls] = next;
+                }
+                state = next;
+            }
+            stateOutputs.set(state, merge(stateOutputs.get(state), payloads.get(k)));
+        }
+
+        int stateCount = gotoRows.size();
+        int[] fail = new int[stateCount];
+        this.transitions = new int[stateCount * alphabetSize];
+        this.outputs = new int[stateCount][];
+        Queue<Integer> queue = new ArrayDeque<>();
+        int[] rootRow = gotoRows.get(0);
+        for (int cls = 0; cls < alphabetSize; cls++) {
+            int next = rootRow[cls];
+            if (next > 0) {
+                fail[next] = 0;
+                queue.add(next);
+                transitions[cls] = next;
+            } else {
+                transitions[cls] = 0;
+            }
+        }
+        outputs[0] = stateOutputs.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(stateOutputs.get(state), outputs[fail[state]]);
+            int[] row = gotoRows.get(state);
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int next = row[cls];
+                if (next > 0) {
+                    fail[next] = transitions[fail[state] * alphabetSize + cls];
+                    queue.add(next);
+                    transitions[state * alphabetSize + cls] = next;
+                } else {
+                    transitions[state * alphabetSize + cls] = transitions[fail[state] * alphabetSize + cls];
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets {@code hits[payload] = true} for every keyword found in the input.
+     */
+    void scan(CharSequence input, boolean[] hits) {
+        int state = 0;
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            int cls;
+            if (c < 128) {
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                cls = asciiClasses[c];
+            } else {
+                cls = classOf(Character.toLowerCase(c));
+            }
+            state = transitions[state * alphabetSize + cls];
+            int[] out = outputs[state];
+            for (int payload : out) {
+                hits[payload] = true;
+            }
+        }
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        Integer cls = otherClasses.get(c);
+        return cls == null ? 0 : cls;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] merge(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.length == 0) {
+            return right;
+        }
+        return Arrays.stream(new int[][]{left, right})
+                .flatMapToInt(Arrays::stream)
+                .distinct()
+                .toArray();
+    }
+}
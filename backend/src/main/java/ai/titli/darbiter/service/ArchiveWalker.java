@@ -0,0 +1,209 @@
+package ai.titli.darbiter.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streams the entries of zip/jar, tar, tar.gz and single-file gzip archives
+ * without unpacking them to disk. Nested archives are walked in place. Each
+ * entry is labelled {@code outer!/inner/path}, one {@code !/} per level.
+ *
+ * <p>One walker covers one top-level archive. All of its limits span every
+ * nesting level, so they guard against zip bombs:
+ * <ul>
+ *   <li>nesting depth;</li>
+ *   <li>number of entries;</li>
+ *   <li>total decompressed bytes, counted as the zip and gzip decoders
+ *       produce them at any level.</li>
+ * </ul>
+ * When the byte limit is reached, the current entry reads as ended and the
+ * walk stops. Every limit that is hit is reported to the handler.
+ */
+final class ArchiveWalker {
+
+    interface EntryHandler {
+        /**
+         * Receives one entry that is not itself an archive. The stream is only
+         * valid during the call; closing it does not close the archive.
+         */
+        void onEntry(String label, InputStream content) throws IOException;
+
+        void onLimit(String label, String message);
+    }
+
+    private final int maxDepth;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final EntryHandler handler;
+    private int entries;
+    private long bytesLeft;
+    private boolean stopped;
+
+    ArchiveWalker(int maxDepth, int maxEntries, long maxBytes, EntryHandler handler) {
+        this.maxDepth = Math.max(1, maxDepth);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.bytesLeft = maxBytes;
+        this.handler = handler;
+    }
+
+    static boolean isArchive(FileTypeDetector.FileType type) {
+        return type == FileTypeDetector.FileType.ZIP
+                || type == FileTypeDetector.FileType.GZIP
+                || type == FileTypeDetector.FileType.TAR;
+    }
+
+    void walk(String label, InputStream archive) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(archive, FileTypeDetector.HEADER_BYTES);
+        walk(label, in, peek(in), 1);
+    }
+
+    private void walk(String label, BufferedInputStream in, FileTypeDetector.FileType type, int depth)
+            throws IOException {
+        switch (type) {
+            case ZIP -> walkZip(label, in, depth);
+            case TAR -> walkTar(label, in, depth);
+            case GZIP -> walkGzip(label, in, depth);
+            default -> throw new IOException("Not an archive: " + label);
+        }
+    }
+
+    private void walkZip(String label, InputStream in, int depth) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        for (ZipEntry entry = zip.getNextEntry(); entry != null && !stopped; entry = zip.getNextEntry()) {
+            if (!entry.isDirectory()) {
+                entry(label + "!/" + entry.getName(), new Budgeted(zip), depth);
+            }
+        }
+    }
+
+    private void walkTar(String label, InputStream in, int depth) throws IOException {
+        TarReader tar = new TarReader(in);
+        while (!stopped && tar.next()) {
+            if (tar.isFile()) {
+                entry(label + "!/" + tar.getName(), tar.content(), depth);
+            }
+        }
+    }
+
+    /** A gzip member holds either a tar stream or one compressed file. */
+    private void walkGzip(String label, InputStream in, int depth) throws IOException {
+        BufferedInputStream gunzipped = new BufferedInputStream(
+                new Budgeted(new GZIPInputStream(in)), FileTypeDetector.HEADER_BYTES);
+        if (peek(gunzipped) == FileTypeDetector.FileType.TAR) {
+            walkTar(label, gunzipped, depth);
+            return;
+        }
+        String name = label.substring(label.lastIndexOf('/') + 1);
+        name = name.substring(name.lastIndexOf('!') + 1);
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        } else if (lower.endsWith(".gzip")) {
+            name = name.substring(0, name.length() - 5);
+        }
+        entry(label + "!/" + name, gunzipped, depth);
+    }
+
+    private void entry(String label, InputStream raw, int depth) throws IOException {
+        if (++entries > maxEntries) {
+            stop(label, "Archive entry limit of " + maxEntries + " reached; remaining entries skipped");
+            return;
+        }
+        BufferedInputStream content = new BufferedInputStream(raw, FileTypeDetector.HEADER_BYTES);
+        FileTypeDetector.FileType type = peek(content);
+        if (!isArchive(type)) {
+            handler.onEntry(label, new Unclosable(content));
+        } else if (depth < maxDepth) {
+            walk(label, content, type, depth + 1);
+        } else {
+            handler.onLimit(label, "Nested archive skipped: depth limit of " + maxDepth + " reached");
+        }
+        // Whatever the handler left unread is still inflated to reach the next
+        // entry; drain it here so that work counts against the budget too.
+        content.transferTo(OutputStream.nullOutputStream());
+        if (bytesLeft <= 0 && !stopped) {
+            stop(label, "Archive size limit of " + maxBytes + " decompressed bytes reached; scan cut off");
+        }
+    }
+
+    private void stop(String label, String message) {
+        stopped = true;
+        handler.onLimit(label, message);
+    }
+
+    private static FileTypeDetector.FileType peek(BufferedInputStream in) throws IOException {
+        in.mark(FileTypeDetector.HEADER_BYTES);
+        byte[] header = in.readNBytes(FileTypeDetector.HEADER_BYTES);
+        in.reset();
+        return FileTypeDetector.detect(ByteBuffer.wrap(header));
+    }
+
+    private static final class Unclosable extends FilterInputStream {
+        private Unclosable(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // The walker still reads past what the handler consumed.
+        }
+    }
+
+    /**
+     * Counts a decoder's output against the walker's budget and reads as ended
+     * once it is spent. Never closes the underlying archive stream.
+     */
+    private final class Budgeted extends FilterInputStream {
+        private Budgeted(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (bytesLeft <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                bytesLeft--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (bytesLeft <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, bytesLeft));
+            if (read > 0) {
+                bytesLeft -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, Math.max(0, bytesLeft)));
+            bytesLeft -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // The archive stream is owned by the walker's caller.
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ai.titli.darbiter.service;
+
+/**
+ * Mutable {@link CharSequence} view over a region of a shared char buffer. Lets
+ * regexes run over buffered input without copying each line into a String.
+ */
+final class CharWindow implements CharSequence {
+    private char[] buffer;
+    private int offset;
+    private int length;
+
+    CharWindow set(char[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return buffer[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length);
+    }
+}
@@ -0,0 +1,183 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.RuleApplicability;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled form of a rule's {@link RuleApplicability}. File globs containing a
+ * {@code /} match the whole source path, others only its file name. Structured
+ * path globs use {@code *} for one path segment and {@code **} for any suffix,
+ * e.g. {@code $.spring.datasource.*} or {@code $.items[*].token}; paths without
+ * a leading {@code $} (property keys) are matched as {@code $.key}.
+ */
+final class CompiledApplicability {
+    static final CompiledApplicability ANYWHERE = new CompiledApplicability(null);
+
+    private final List<FileGlob> files;
+    private final List<FileGlob> excludeFiles;
+    private final Set<String> extensions;
+    private final Set<String> excludeExtensions;
+    private final Pattern paths;
+    private final int minLineLength;
+
+    private CompiledApplicability(RuleApplicability applicability) {
+        if (applicability == null) {
+            files = List.of();
+            excludeFiles = List.of();
+            extensions = Set.of();
+            excludeExtensions = Set.of();
+            paths = null;
+            minLineLength = 0;
+            return;
+        }
+        files = fileGlobs(applicability.getFiles());
+        excludeFiles = fileGlobs(applicability.getExcludeFiles());
+        extensions = normalizeExtensions(applicability.getExtensions());
+        excludeExtensions = normalizeExtensions(applicability.getExcludeExtensions());
+        paths = pathPattern(applicability.getPaths());
+        minLineLength = Math.max(0, applicability.getMinLineLength());
+    }
+
+    static CompiledApplicability of(RuleApplicability applicability) {
+        return applicability == null ? ANYWHERE : new CompiledApplicability(applicability);
+    }
+
+    boolean restrictsFiles() {
+        return !files.isEmpty() || !excludeFiles.isEmpty() || !extensions.isEmpty() || !excludeExtensions.isEmpty();
+    }
+
+    boolean appliesToFile(String source) {
+        if (!restrictsFiles()) {
+            return true;
+        }
+        String extension = extension(source);
+        if (excludeExtensions.contains(extension) || matchesAny(excludeFiles, source)) {
+            return false;
+        }
+        if (!extensions.isEmpty() && !extensions.contains(extension)) {
+            return false;
+        }
+        return files.isEmpty() || matchesAny(files, source);
+    }
+
+    boolean restrictsPaths() {
+        return paths != null;
+    }
+
+    /** Structured path check; plain text lines ({@code null} path) never match a path-scoped rule. */
+    boolean appliesToPath(String path) {
+        if (paths == null) {
+            return true;
+        }
+        if (path == null) {
+            return false;
+        }
+        return paths.matcher(path.startsWith("$") ? path : "$." + path).matches();
+    }
+
+    int minLineLength() {
+        return minLineLength;
+    }
+
+    private static List<FileGlob> fileGlobs(List<String> globs) {
+        List<FileGlob> compiled = new ArrayList<>();
+        if (globs == null) {
+            return compiled;
+        }
+        FileSystem fs = FileSystems.getDefault();
+        for (String glob : globs) {
+            if (glob != null && !glob.isBlank()) {
+                compiled.add(new FileGlob(fs.getPathMatcher("glob:" + glob), glob.contains("/")));
+            }
+        }
+        return compiled;
+    }
+
+    private static boolean matchesAny(List<FileGlob> globs, String source) {
+        if (globs.isEmpty()) {
+            return false;
+        }
+        Path path;
+        try {
+            path = Path.of(source);
+        } catch (InvalidPathException ex) {
+            return false;
+        }
+        Path fileName = path.getFileName();
+        for (FileGlob glob : globs) {
+            Path subject = glob.wholePath ? path : fileName;
+            if (subject != null && glob.matcher.matches(subject)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> normalizeExtensions(List<String> extensions) {
+        if (extensions == null) {
+            return Set.of();
+        }
+        return extensions.stream()
+                .filter(ext -> ext != null && !ext.isBlank())
+                .map(ext -> ext.trim().toLowerCase(Locale.ROOT).replaceFirst("^\\.", ""))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static Pattern pathPattern(List<String> globs) {
+        if (globs == null || globs.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String glob : globs) {
+            if (glob == null || glob.isBlank()) {
+                continue;
+            }
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append("(?:");
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else if (c == '*') {
+                    regex.append("[^.]*");
+                } else if (c == '?') {
+                    regex.append("[^.]");
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            regex.append(')');
+        }
+        return regex.length() == 0 ? null : Pattern.compile(regex.toString());
+    }
+
+    private static String extension(String source) {
+        int slash = Math.max(source.lastIndexOf('/'), source.lastIndexOf('\\'));
+        int dot = source.lastIndexOf('.');
+        return dot > slash ? source.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static final class FileGlob {
+        private final PathMatcher matcher;
+        private final boolean wholePath;
+
+        private FileGlob(PathMatcher matcher, boolean wholePath) {
+            this.matcher = matcher;
+            this.wholePath = wholePath;
+        }
+    }
+}
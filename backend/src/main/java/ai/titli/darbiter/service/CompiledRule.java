@@ -0,0 +1,36 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.RulePattern;
+
+import java.util.regex.Pattern;
+
+public final class CompiledRule {
+    private final RulePattern rule;
+    private final Pattern pattern;
+    private final int index;
+    private final CompiledApplicability applicability;
+
+    CompiledRule(RulePattern rule, Pattern pattern, int index) {
+        this.rule = rule;
+        this.pattern = pattern;
+        this.index = index;
+        this.applicability = CompiledApplicability.of(rule.getApplicability());
+    }
+
+    public RulePattern getRule() {
+        return rule;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /** Position of this rule within its compiled ruleset. */
+    int getIndex() {
+        return index;
+    }
+
+    CompiledApplicability getApplicability() {
+        return applicability;
+    }
+}
@@ -0,0 +1,77 @@
+package ai.titli.darbiter.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, thread-safe compiled form of a ruleset for one category filter.
+ * Instances are shared between concurrent scans; per-call matcher state is
+ * created by the caller.
+ */
+final class CompiledRuleSet {
+    private final String name;
+    private final String version;
+    private final List<CompiledRule> rules;
+    private final MatchEngine engine;
+    private final Function<List<CompiledRule>, MatchEngine> engineFactory;
+    private final boolean restrictsFiles;
+    private final Map<BitSet, MatchEngine> subsetEngines = new ConcurrentHashMap<>();
+
+    CompiledRuleSet(String name, String version, List<CompiledRule> rules,
+                    Function<List<CompiledRule>, MatchEngine> engineFactory) {
+        this.name = name;
+        this.version = version;
+        this.rules = List.copyOf(rules);
+        this.engineFactory = engineFactory;
+        this.engine = engineFactory.apply(this.rules);
+        this.restrictsFiles = this.rules.stream().anyMatch(rule -> rule.getApplicability().restrictsFiles());
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    MatchEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Engine over only the rules whose file predicates accept {@code source}.
+     * Files that select the same subset share one engine, so the prefilter
+     * automaton is built once per distinct subset rather than per file. A
+     * {@code null} source (pasted text) gets every rule.
+     */
+    MatchEngine engineFor(String source) {
+        if (!restrictsFiles || source == null) {
+            return engine;
+        }
+        BitSet selected = new BitSet(rules.size());
+        for (CompiledRule rule : rules) {
+            if (rule.getApplicability().appliesToFile(source)) {
+                selected.set(rule.getIndex());
+            }
+        }
+        if (selected.cardinality() == rules.size()) {
+            return engine;
+        }
+        return subsetEngines.computeIfAbsent(selected, key -> {
+            List<CompiledRule> subset = new ArrayList<>(key.cardinality());
+            for (int i = key.nextSetBit(0); i >= 0; i = key.nextSetBit(i + 1)) {
+                subset.add(rules.get(i));
+            }
+            return engineFactory.apply(subset);
+        });
+    }
+}
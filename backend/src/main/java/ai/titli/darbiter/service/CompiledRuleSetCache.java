@@ -0,0 +1,118 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.RulePattern;
+import ai.titli.darbiter.model.RuleSet;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles rulesets once per category filter instead of once per scanned file.
+ * The compiled forms are kept on the {@link RuleSetSnapshot} they were built
+ * from and are released together with it.
+ */
+@Component
+public class CompiledRuleSetCache {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final String engine;
+
+    public CompiledRuleSetCache(MeterRegistry meterRegistry,
+                                @Value("${darbiter.detection.engine:prefilter}") String engine) {
+        this.engine = engine;
+        FunctionCounter.builder("darbiter.ruleset.cache.hits", hits, LongAdder::sum)
+                .description("Compiled ruleset cache hits")
+                .register(meterRegistry);
+        FunctionCounter.builder("darbiter.ruleset.cache.misses", misses, LongAdder::sum)
+                .description("Compiled ruleset cache misses")
+                .register(meterRegistry);
+    }
+
+    CompiledRuleSet get(RuleSetSnapshot snapshot, Set<FindingCategory> categories) {
+        Map<Key, CompiledRuleSet> cache = snapshot.compiled();
+        Key key = new Key(engine, normalize(categories));
+        CompiledRuleSet compiled = cache.get(key);
+        if (compiled != null) {
+            hits.increment();
+            return compiled;
+        }
+        return cache.computeIfAbsent(key, k -> {
+            misses.increment();
+            return compile(snapshot.ruleSet(), key.categories);
+        });
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private CompiledRuleSet compile(RuleSet ruleSet, Set<FindingCategory> categories) {
+        List<CompiledRule> compiledRules = new ArrayList<>();
+        for (RulePattern rule : ruleSet.getPatterns()) {
+            if (!categories.contains(rule.getCategory())) {
+                continue;
+            }
+            Pattern pattern = Pattern.compile(rule.getRegex());
+            compiledRules.add(new CompiledRule(rule, pattern, compiledRules.size()));
+        }
+        return new CompiledRuleSet(ruleSet.getName(), ruleSet.getVersion(), compiledRules, this::createEngine);
+    }
+
+    private MatchEngine createEngine(List<CompiledRule> compiledRules) {
+        return switch (engine.toLowerCase(Locale.ROOT)) {
+            case "regex" -> new RegexMatchEngine(compiledRules);
+            case "prefilter" -> new PrefilterMatchEngine(compiledRules);
+            default -> throw new IllegalStateException("Unknown detection engine: " + engine);
+        };
+    }
+
+    private Set<FindingCategory> normalize(Set<FindingCategory> categories) {
+        if (categories == null || categories.isEmpty()) {
+            return EnumSet.allOf(FindingCategory.class);
+        }
+        return EnumSet.copyOf(categories);
+    }
+
+    /** The engine is part of the key so caches configured differently never share an entry. */
+    static final class Key {
+        private final String engine;
+        private final Set<FindingCategory> categories;
+
+        private Key(String engine, Set<FindingCategory> categories) {
+            this.engine = engine;
+            this.categories = categories;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return engine.equals(other.engine) && categories.equals(other.categories);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(engine, categories);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ai.titli.darbiter.service;
+
+/**
+ * How a scanned item is extracted, decided once per item. Structured formats
+ * yield fields; documents have to be parsed as a whole and have no raw-text
+ * fallback; text is scanned as a line stream, archives are walked entry by
+ * entry and binaries are skipped.
+ */
+enum ContentFormat {
+    JSON(true, false),
+    YAML(true, false),
+    TOML(true, false),
+    CSV(true, false),
+    XML(true, false),
+    KEY_VALUE(true, false),
+    XLSX(true, true),
+    PDF(false, true),
+    DOCX(false, true),
+    TEXT(false, false),
+    ARCHIVE(false, false),
+    BINARY(false, false);
+
+    private final boolean structured;
+    private final boolean document;
+
+    ContentFormat(boolean structured, boolean document) {
+        this.structured = structured;
+        this.document = document;
+    }
+
+    static ContentFormat fromName(String filename) {
+        return switch (ContentSource.extensionOf(filename)) {
+            case "json" -> JSON;
+            case "yaml", "yml" -> YAML;
+            case "toml" -> TOML;
+            case "csv" -> CSV;
+            case "xml" -> XML;
+            case "properties", "env", "conf" -> KEY_VALUE;
+            case "xlsx" -> XLSX;
+            case "pdf" -> PDF;
+            case "docx" -> DOCX;
+            default -> TEXT;
+        };
+    }
+
+    boolean isStructured() {
+        return structured;
+    }
+
+    boolean isDocument() {
+        return document;
+    }
+
+    /** Whether the whole item is needed up front rather than decoded as it streams. */
+    boolean isBuffered() {
+        return this != TEXT && this != ARCHIVE && this != BINARY;
+    }
+}
@@ -0,0 +1,193 @@
+package ai.titli.darbiter.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The bytes of one item to extract. There are three kinds:
+ * <ul>
+ *   <li>a file on disk, opened as needed;</li>
+ *   <li>a buffer (a byte array or a mapped file) that has already been read
+ *       once and can be streamed again any number of times;</li>
+ *   <li>a one-shot stream, such as a plain-text upload, that can be opened
+ *       only once.</li>
+ * </ul>
+ * Extractors that need random access or a second pass use a buffer, so they
+ * never go back to the original input.
+ */
+public final class ContentSource {
+    private final String name;
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final boolean truncated;
+    private final ContentFormat format;
+    private final Charset charset;
+    private InputStream stream;
+
+    private ContentSource(String name, Path file, ByteBuffer buffer, InputStream stream, boolean truncated,
+                          ContentFormat format, Charset charset) {
+        this.name = name;
+        this.file = file;
+        this.buffer = buffer;
+        this.stream = stream;
+        this.truncated = truncated;
+        this.format = format;
+        this.charset = charset;
+    }
+
+    private ContentSource(String name, Path file, ByteBuffer buffer, InputStream stream, boolean truncated) {
+        this(name, file, buffer, stream, truncated, ContentFormat.fromName(name), StandardCharsets.UTF_8);
+    }
+
+    public static ContentSource of(Path file) {
+        return new ContentSource(file.getFileName().toString(), file, null, null, false);
+    }
+
+    public static ContentSource of(String name, byte[] content) {
+        return new ContentSource(name, null, ByteBuffer.wrap(content), null, false);
+    }
+
+    static ContentSource of(String name, ByteBuffer buffer, boolean truncated) {
+        return new ContentSource(name, null, buffer.asReadOnlyBuffer(), null, truncated);
+    }
+
+    /** Wraps a stream that is read at most once; {@link #open()} fails on a second call. */
+    public static ContentSource stream(String name, InputStream inputStream) {
+        return new ContentSource(name, null, null, inputStream, false);
+    }
+
+    /**
+     * This source with a sniffed format and text charset in place of the ones
+     * derived from its name. Use the returned source instead of this one.
+     */
+    ContentSource as(ContentFormat format, Charset charset) {
+        InputStream once = stream;
+        stream = null;
+        return new ContentSource(name, file, buffer, once, truncated, format, charset);
+    }
+
+    /**
+     * Reads {@code inputStream} into memory, keeping at most {@code maxBytes}
+     * bytes. Anything past the cap is left unread and the source is marked
+     * truncated.
+     */
+    public static ContentSource read(String name, InputStream inputStream, int maxBytes) throws IOException {
+        byte[] buffer = new byte[Math.min(maxBytes, 64 * 1024)];
+        int length = 0;
+        while (length < maxBytes) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBytes));
+            }
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                return of(name, ByteBuffer.wrap(buffer, 0, length), false);
+            }
+            length += read;
+        }
+        return of(name, ByteBuffer.wrap(buffer, 0, length), inputStream.read() >= 0);
+    }
+
+    /** File name used to pick the format; may be a label rather than a real path. */
+    public String getName() {
+        return name;
+    }
+
+    /** Lower-case extension of {@link #getName()}, or "" when it has none. */
+    public String getExtension() {
+        return extensionOf(name);
+    }
+
+    /** How this source is extracted; by default derived from its name. */
+    ContentFormat getFormat() {
+        return format;
+    }
+
+    /** Charset for decoding it as text; UTF-8 unless detected otherwise. */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    static String extensionOf(String filename) {
+        int idx = filename == null ? -1 : filename.lastIndexOf('.');
+        return idx == -1 ? "" : filename.substring(idx + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /** The backing file when this source reads from disk, otherwise {@code null}. */
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean isBuffered() {
+        return buffer != null;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** A fresh stream over the whole content; the caller closes it. */
+    public InputStream open() throws IOException {
+        if (file != null) {
+            return Files.newInputStream(file);
+        }
+        if (buffer != null) {
+            if (buffer.hasArray()) {
+                return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining());
+            }
+            return new ByteBufferInputStream(buffer.duplicate());
+        }
+        if (stream == null) {
+            throw new IllegalStateException("Stream already consumed: " + name);
+        }
+        InputStream once = stream;
+        stream = null;
+        return once;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -1,171 +1,232 @@
 package ai.titli.darbiter.service;
 
 import ai.titli.darbiter.model.Finding;
-import ai.titli.darbiter.model.RulePattern;
-import ai.titli.darbiter.model.RuleSet;
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.StructuredField;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 public class DetectionService {
-    private static final int MAX_BYTES = 2_000_000;
+    private final CompiledRuleSetCache compiledRuleSetCache;
+    private final TextFileReaderFactory textFileReaderFactory;
+    private final ScanMetrics scanMetrics;
+    private final ThreadLocal<LineScanner> lineScanners;
+    private final long guardMaxSteps;
+    private final long guardMaxMillis;
+    private final int guardDisableAfter;
 
-    public List<Finding> detect(Path file, RuleSet ruleSet, Set<ai.titli.darbiter.model.FindingCategory> categories) {
-        List<Finding> findings = new ArrayList<>();
-        if (!Files.isRegularFile(file) || isLikelyBinary(file)) {
-            return findings;
-        }
+    public DetectionService(CompiledRuleSetCache compiledRuleSetCache,
+                            TextFileReaderFactory textFileReaderFactory,
+                            ScanMetrics scanMetrics,
+                            @Value("${darbiter.detection.window-chars:65536}") int windowChars,
+                            @Value("${darbiter.detection.window-overlap:1024}") int windowOverlap,
+                            @Value("${darbiter.detection.guard.max-steps:20000000}") long guardMaxSteps,
+                            @Value("${darbiter.detection.guard.max-millis:250}") long guardMaxMillis,
+                            @Value("${darbiter.detection.guard.disable-after:3}") int guardDisableAfter) {
+        this.compiledRuleSetCache = compiledRuleSetCache;
+        this.textFileReaderFactory = textFileReaderFactory;
+        this.scanMetrics = scanMetrics;
+        this.lineScanners = ThreadLocal.withInitial(() -> new LineScanner(windowChars, windowOverlap));
+        this.guardMaxSteps = guardMaxSteps;
+        this.guardMaxMillis = guardMaxMillis;
+        this.guardDisableAfter = guardDisableAfter;
+    }
 
-        List<CompiledRule> compiledRules = compile(ruleSet, categories);
-        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-            String line;
-            int lineNumber = 0;
-            int totalBytes = 0;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                totalBytes += line.getBytes(StandardCharsets.UTF_8).length;
-                if (totalBytes > MAX_BYTES) {
-                    break;
-                }
-                for (CompiledRule compiledRule : compiledRules) {
-                    Matcher matcher = compiledRule.pattern.matcher(line);
-                    while (matcher.find()) {
-                        String snippet = trimSnippet(line, matcher.start(), matcher.end());
-                        findings.add(new Finding(
-                                compiledRule.rule.getId(),
-                                compiledRule.rule.getCategory(),
-                                compiledRule.rule.getLabel(),
-                                compiledRule.rule.getSeverity(),
-                                file.toString(),
-                                lineNumber,
-                                snippet
-                        ));
-                    }
-                }
-            }
+    public List<Finding> detect(Path file, RuleSetSnapshot ruleSet, Set<FindingCategory> categories) {
+        return detect(file, ruleSet, categories, textFileReaderFactory.resolveByteBudget(null));
+    }
+
+    /**
+     * Scans at most {@code byteBudget} bytes of the file ({@code <= 0} for no limit).
+     */
+    public List<Finding> detect(Path file, RuleSetSnapshot ruleSet, Set<FindingCategory> categories, long byteBudget) {
+        if (!Files.isRegularFile(file)) {
+            return new ArrayList<>();
+        }
+        FileTypeDetector.FileType type;
+        try {
+            type = FileTypeDetector.detect(file);
+        } catch (IOException ex) {
+            type = FileTypeDetector.FileType.BINARY;
+        }
+        if (type.isBinary()) {
+            scanMetrics.fileSkipped("binary");
+            return new ArrayList<>();
+        }
+        try (Reader reader = textFileReaderFactory.open(file, byteBudget, type.charset())) {
+            return detectStream(reader, ruleSet, categories, file.toString());
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to read file: " + file, ex);
         }
-        return findings;
     }
 
-    public List<Finding> detectText(String content, RuleSet ruleSet,
-                                    Set<ai.titli.darbiter.model.FindingCategory> categories,
+    public List<Finding> detectText(String content, RuleSetSnapshot ruleSet,
+                                    Set<FindingCategory> categories,
                                     String sourceLabel) {
-        List<Finding> findings = new ArrayList<>();
+        return detectText(content, ruleSet, categories, sourceLabel, new ScanContext());
+    }
+
+    /**
+     * Pasted text has no file name, so file-scoped rule applicability is not
+     * applied; use {@link #detectStream} for file content.
+     */
+    public List<Finding> detectText(String content, RuleSetSnapshot ruleSet,
+                                    Set<FindingCategory> categories,
+                                    String sourceLabel,
+                                    ScanContext context) {
         if (content == null || content.isBlank()) {
-            return findings;
+            return new ArrayList<>();
         }
-        List<CompiledRule> compiledRules = compile(ruleSet, categories);
-        String[] lines = content.split("\\R");
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int lineNumber = i + 1;
-            for (CompiledRule compiledRule : compiledRules) {
-                Matcher matcher = compiledRule.pattern.matcher(line);
-                while (matcher.find()) {
-                    String snippet = trimSnippet(line, matcher.start(), matcher.end());
-                    findings.add(new Finding(
-                            compiledRule.rule.getId(),
-                            compiledRule.rule.getCategory(),
-                            compiledRule.rule.getLabel(),
-                            compiledRule.rule.getSeverity(),
-                            sourceLabel,
-                            lineNumber,
-                            snippet
-                    ));
-                }
-            }
+        return scanLines(new StringReader(content), ruleSet, categories, sourceLabel, null, context);
+    }
+
+    /**
+     * Scans a character stream line by line through a reusable per-thread buffer,
+     * so heap use per call is bounded by the window size rather than the input
+     * size. Line numbers match {@link #detectText}.
+     */
+    public List<Finding> detectStream(Reader reader, RuleSetSnapshot ruleSet,
+                                      Set<FindingCategory> categories,
+                                      String sourceLabel) {
+        return detectStream(reader, ruleSet, categories, sourceLabel, new ScanContext());
+    }
+
+    /**
+     * As {@link #detectStream(Reader, RuleSetSnapshot, Set, String)}, with rule guard
+     * diagnostics and disabled rules tracked in {@code context}. The source
+     * label is treated as a file name for rule applicability filters.
+     */
+    public List<Finding> detectStream(Reader reader, RuleSetSnapshot ruleSet,
+                                      Set<FindingCategory> categories,
+                                      String sourceLabel,
+                                      ScanContext context) {
+        return scanLines(reader, ruleSet, categories, sourceLabel, sourceLabel, context);
+    }
+
+    private List<Finding> scanLines(Reader reader, RuleSetSnapshot ruleSet,
+                                    Set<FindingCategory> categories,
+                                    String sourceLabel,
+                                    String fileName,
+                                    ScanContext context) {
+        List<Finding> findings = new ArrayList<>();
+        CompiledRuleSet compiled = compiledRuleSetCache.get(ruleSet, categories);
+        MatchEngine.Session session = compiled.engineFor(fileName).newSession(newGuard(context, sourceLabel, compiled));
+        RuleStats stats = scanMetrics.newRuleStats(compiled.getRules().size());
+        int lines;
+        try {
+            lines = lineScanners.get().scan(reader, (line, lineNumber, reportFrom, reportUntil) ->
+                    session.scan(line, (compiledRule, start, end) -> {
+                        if (start >= reportFrom && start < reportUntil) {
+                            findings.add(toFinding(compiledRule, sourceLabel, lineNumber,
+                                    trimSnippet(line, start, end)));
+                        }
+                    }, stats));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read content: " + sourceLabel, ex);
         }
+        scanMetrics.linesScanned(lines);
+        scanMetrics.recordRules(compiled.getRules(), stats);
         return findings;
     }
 
-    public List<Finding> detectStructured(List<ai.titli.darbiter.model.StructuredField> fields,
-                                          RuleSet ruleSet,
-                                          Set<ai.titli.darbiter.model.FindingCategory> categories,
+    public List<Finding> detectStructured(List<StructuredField> fields,
+                                          RuleSetSnapshot ruleSet,
+                                          Set<FindingCategory> categories,
                                           String sourceLabel) {
+        return detectStructured(fields, ruleSet, categories, sourceLabel, new ScanContext());
+    }
+
+    public List<Finding> detectStructured(List<StructuredField> fields,
+                                          RuleSetSnapshot ruleSet,
+                                          Set<FindingCategory> categories,
+                                          String sourceLabel,
+                                          ScanContext context) {
         List<Finding> findings = new ArrayList<>();
         if (fields == null || fields.isEmpty()) {
             return findings;
         }
-        List<CompiledRule> compiledRules = compile(ruleSet, categories);
-        for (ai.titli.darbiter.model.StructuredField field : fields) {
-            String haystack = field.getPath() + "=" + field.getValue();
-            for (CompiledRule compiledRule : compiledRules) {
-                Matcher matcher = compiledRule.pattern.matcher(haystack);
-                while (matcher.find()) {
-                    String snippet = trimSnippet(haystack, matcher.start(), matcher.end());
-                    int lineNumber = field.getLine() > 0 ? field.getLine() : field.getIndex();
-                    findings.add(new Finding(
-                            compiledRule.rule.getId(),
-                            compiledRule.rule.getCategory(),
-                            compiledRule.rule.getLabel(),
-                            compiledRule.rule.getSeverity(),
-                            sourceLabel + " :: " + field.getPath(),
-                            lineNumber,
-                            snippet
-                    ));
-                }
-            }
+        CompiledRuleSet compiled = compiledRuleSetCache.get(ruleSet, categories);
+        MatchEngine.Session session = compiled.engineFor(sourceLabel).newSession(newGuard(context, sourceLabel, compiled));
+        RuleStats stats = scanMetrics.newRuleStats(compiled.getRules().size());
+        StringBuilder haystack = new StringBuilder(256);
+        FieldMatchCollector collector = new FieldMatchCollector(sourceLabel, haystack, findings);
+        for (StructuredField field : fields) {
+            haystack.setLength(0);
+            haystack.append(field.getPath()).append('=').append(field.getValue());
+            collector.startField(field);
+            session.scan(haystack, field.getPath(), collector, stats);
         }
+        scanMetrics.linesScanned(fields.size());
+        scanMetrics.recordRules(compiled.getRules(), stats);
         return findings;
     }
 
-    private List<CompiledRule> compile(RuleSet ruleSet, Set<ai.titli.darbiter.model.FindingCategory> categories) {
-        List<CompiledRule> compiledRules = new ArrayList<>();
-        for (RulePattern rule : ruleSet.getPatterns()) {
-            if (categories != null && !categories.contains(rule.getCategory())) {
-                continue;
-            }
-            Pattern pattern = Pattern.compile(rule.getRegex());
-            compiledRules.add(new CompiledRule(rule, pattern));
+    private RuleGuard newGuard(ScanContext context, String sourceLabel, CompiledRuleSet compiled) {
+        if (guardMaxSteps <= 0 && guardMaxMillis <= 0) {
+            return null;
         }
-        return compiledRules;
+        return new RuleGuard(context, sourceLabel, compiled.getRules(), guardMaxSteps, guardMaxMillis,
+                guardDisableAfter, scanMetrics);
     }
 
-    private boolean isLikelyBinary(Path file) {
-        try (BufferedInputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
-            int read = 0;
-            while (read < 1024) {
-                int b = stream.read();
-                if (b == -1) {
-                    break;
-                }
-                if (b == 0) {
-                    return true;
-                }
-                read++;
-            }
-        } catch (IOException ex) {
-            return true;
-        }
-        return false;
+    private Finding toFinding(CompiledRule compiledRule, String sourceLabel, int lineNumber, String snippet) {
+        return new Finding(
+                compiledRule.getRule().getId(),
+                compiledRule.getRule().getCategory(),
+                compiledRule.getRule().getLabel(),
+                compiledRule.getRule().getSeverity(),
+                sourceLabel,
+                lineNumber,
+                snippet
+        );
     }
 
-    private String trimSnippet(String line, int start, int end) {
+    private String trimSnippet(CharSequence line, int start, int end) {
         int left = Math.max(0, start - 20);
         int right = Math.min(line.length(), end + 20);
-        return line.substring(left, right).trim();
+        return line.subSequence(left, right).toString().trim();
     }
 
-    private static class CompiledRule {
-        private final RulePattern rule;
-        private final Pattern pattern;
+    /**
+     * Turns matches in the current field's {@code path=value} buffer into
+     * findings. Reused across fields; the finding label is only built once a
+     * field actually matches.
+     */
+    private final class FieldMatchCollector implements MatchEngine.MatchListener {
+        private final String sourceLabel;
+        private final CharSequence haystack;
+        private final List<Finding> findings;
+        private StructuredField field;
+        private String label;
 
-        private CompiledRule(RulePattern rule, Pattern pattern) {
-            this.rule = rule;
-            this.pattern = pattern;
+        private FieldMatchCollector(String sourceLabel, CharSequence haystack, List<Finding> findings) {
+            this.sourceLabel = sourceLabel;
+            this.haystack = haystack;
+            this.findings = findings;
+        }
+
+        private void startField(StructuredField field) {
+            this.field = field;
+            this.label = null;
+        }
+
+        @Override
+        public void onMatch(CompiledRule rule, int start, int end) {
+            if (label == null) {
+                label = sourceLabel + " :: " + field.getPath();
+            }
+            int lineNumber = field.getLine() > 0 ? field.getLine() : field.getIndex();
+            findings.add(toFinding(rule, label, lineNumber, trimSnippet(haystack, start, end)));
         }
     }
 }
@@ -12,11 +12,13 @@ import java.util.List;
 @Service
 public class EligibilityEvaluator {
     public EligibilityDecision evaluate(List<Finding> findings, boolean approvedForAi) {
-        boolean hasSecrets = findings.stream().anyMatch(f -> f.getCategory() == FindingCategory.SECRET);
-        boolean hasPii = findings.stream().anyMatch(f -> f.getCategory() == FindingCategory.PII);
-        boolean hasCriticalConfig = findings.stream()
-                .anyMatch(f -> f.getCategory() == FindingCategory.CONFIG_RISK
-                        && f.getSeverity() == RiskLevel.CRITICAL);
+        return evaluate(RiskTally.of(findings), approvedForAi);
+    }
+
+    public EligibilityDecision evaluate(RiskTally tally, boolean approvedForAi) {
+        boolean hasSecrets = tally.count(FindingCategory.SECRET) > 0;
+        boolean hasPii = tally.count(FindingCategory.PII) > 0;
+        boolean hasCriticalConfig = tally.count(FindingCategory.CONFIG_RISK, RiskLevel.CRITICAL) > 0;
 
         java.util.List<String> reasons = new java.util.ArrayList<>();
         java.util.List<String> policies = new java.util.ArrayList<>();
@@ -0,0 +1,69 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.StructuredField;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Result of extracting one item: structured fields, or a text stream to scan
+ * line by line, or neither when the item could not be read. {@link #getError()}
+ * carries the extractor failure, including a structured parse that failed and
+ * fell back to text.
+ */
+final class Extraction implements Closeable {
+    private final ContentFormat format;
+    private final List<StructuredField> fields;
+    private final Reader text;
+    private final Exception error;
+
+    private Extraction(ContentFormat format, List<StructuredField> fields, Reader text, Exception error) {
+        this.format = format;
+        this.fields = fields;
+        this.text = text;
+        this.error = error;
+    }
+
+    static Extraction fields(ContentFormat format, List<StructuredField> fields) {
+        return new Extraction(format, fields, null, null);
+    }
+
+    static Extraction text(ContentFormat format, Reader text, Exception error) {
+        return new Extraction(format, null, text, error);
+    }
+
+    static Extraction failed(ContentFormat format, Exception error) {
+        return new Extraction(format, null, null, error);
+    }
+
+    ContentFormat getFormat() {
+        return format;
+    }
+
+    /** Extracted fields, or {@code null} when the item is scanned as text. */
+    List<StructuredField> getFields() {
+        return fields;
+    }
+
+    /** Text to scan, or {@code null}; closed with this extraction. */
+    Reader getText() {
+        return text;
+    }
+
+    Exception getError() {
+        return error;
+    }
+
+    boolean isFailed() {
+        return fields == null && text == null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (text != null) {
+            text.close();
+        }
+    }
+}
@@ -3,109 +3,253 @@ package ai.titli.darbiter.service;
 import ai.titli.darbiter.model.StructuredField;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 @Service
 public class FileContentExtractor {
     private static final int MAX_BYTES = 2_000_000;
     private final StructuredDataExtractor structuredDataExtractor;
+    private final TextFileReaderFactory textFileReaderFactory;
+    private final ScanMetrics scanMetrics;
 
-    public FileContentExtractor(StructuredDataExtractor structuredDataExtractor) {
+    public FileContentExtractor(StructuredDataExtractor structuredDataExtractor,
+                                TextFileReaderFactory textFileReaderFactory,
+                                ScanMetrics scanMetrics) {
         this.structuredDataExtractor = structuredDataExtractor;
+        this.textFileReaderFactory = textFileReaderFactory;
+        this.scanMetrics = scanMetrics;
+    }
+
+    /**
+     * Opens a file for {@link #extractFrom}. Its header block is sniffed first
+     * (see {@link FileTypeDetector}) so binaries are skipped without reading
+     * further and mislabeled files get the right extractor. Formats that are
+     * parsed as a whole are then read once into a shared buffer (mapped when
+     * large) of at most {@code maxBufferBytes}. Binary documents stay on disk so
+     * POI and PDFBox open them from the file with random access, and anything
+     * else is left on disk to be decoded as it streams.
+     */
+    ContentSource load(Path file, int maxBufferBytes) throws IOException {
+        FileTypeDetector.FileType type = FileTypeDetector.detect(file);
+        ContentFormat format = FileTypeDetector.route(ContentFormat.fromName(file.getFileName().toString()), type);
+        ContentSource source = format.isBuffered() && !format.isDocument()
+                ? textFileReaderFactory.buffer(file, maxBufferBytes)
+                : ContentSource.of(file);
+        return source.as(format, type.charset());
+    }
+
+    /**
+     * Same as {@link #load(Path, int)} for a stream that can only be read once: the
+     * header block is sniffed and put back in front of the stream, whole formats
+     * are buffered up to {@code maxBufferBytes}, and text is streamed.
+     */
+    ContentSource load(String name, InputStream inputStream, int maxBufferBytes) throws IOException {
+        byte[] header = inputStream.readNBytes(FileTypeDetector.HEADER_BYTES);
+        FileTypeDetector.FileType type = FileTypeDetector.detect(ByteBuffer.wrap(header));
+        ContentFormat format = FileTypeDetector.route(ContentFormat.fromName(name), type);
+        InputStream content = new SequenceInputStream(new ByteArrayInputStream(header), inputStream);
+        ContentSource source = format.isBuffered()
+                ? ContentSource.read(name, content, maxBufferBytes)
+                : ContentSource.stream(name, content);
+        return source.as(format, type.charset());
+    }
+
+    /**
+     * Extracts one source in a single pass, using the format decided when it was
+     * loaded: structured formats yield fields; when parsing fails or finds nothing,
+     * the same bytes are scanned as text (except for binary documents, which have
+     * no text fallback). Failures are returned on the {@link Extraction} rather
+     * than thrown.
+     */
+    Extraction extractFrom(ContentSource source, long byteBudget) {
+        ContentFormat format = source.getFormat();
+        Exception error = null;
+        if (format.isStructured()) {
+            long started = System.nanoTime();
+            try {
+                List<StructuredField> fields = structured(format, source);
+                if (!fields.isEmpty() || format.isDocument()) {
+                    return Extraction.fields(format, fields);
+                }
+            } catch (IOException | RuntimeException ex) {
+                if (format.isDocument()) {
+                    return Extraction.failed(format, ex);
+                }
+                error = ex;
+            } finally {
+                scanMetrics.extractionCompleted(source.getExtension(), "structured", System.nanoTime() - started);
+            }
+        }
+        try {
+            return Extraction.text(format, openText(format, source, byteBudget), error);
+        } catch (IOException | RuntimeException ex) {
+            return Extraction.failed(format, ex);
+        }
     }
 
     public String extract(Path path) {
-        String ext = extension(path.getFileName().toString());
+        return extract(ContentSource.of(path));
+    }
+
+    public String extract(ContentSource source) {
+        ContentFormat format = source.getFormat();
+        long started = System.nanoTime();
         try {
-            return switch (ext) {
-                case "pdf" -> extractPdf(path);
-                case "docx" -> extractDocx(path);
-                case "xlsx" -> extractXlsx(path);
-                case "json", "csv", "xml", "yaml", "yml", "toml", "txt", "log", "env", "properties", "conf" ->
-                        extractText(path);
-                default -> extractText(path);
+            return switch (format) {
+                case PDF -> extractPdf(source);
+                case DOCX -> extractDocx(source);
+                case XLSX -> extractXlsx(source);
+                default -> extractText(source);
             };
         } catch (IOException ex) {
-            throw new IllegalStateException("Failed to extract content: " + path, ex);
+            throw new IllegalStateException("Failed to extract content: " + source.getName(), ex);
+        } finally {
+            scanMetrics.extractionCompleted(source.getExtension(), "text", System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Opens the file as a character stream for line scanning. Plain-text formats
+     * are decoded straight from the file (capped at {@code byteBudget} bytes,
+     * {@code <= 0} for no cap) instead of being materialized as one String;
+     * document formats are extracted first.
+     */
+    public Reader openReader(Path path, long byteBudget) {
+        return openReader(ContentSource.of(path), byteBudget);
+    }
+
+    public Reader openReader(ContentSource source, long byteBudget) {
+        try {
+            return openText(source.getFormat(), source, byteBudget);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to extract content: " + source.getName(), ex);
         }
     }
 
     public List<StructuredField> extractStructured(Path path) {
-        String ext = extension(path.getFileName().toString());
+        return extractStructured(ContentSource.of(path));
+    }
+
+    public List<StructuredField> extractStructured(ContentSource source) {
+        ContentFormat format = source.getFormat();
+        if (!format.isStructured()) {
+            return Collections.emptyList();
+        }
+        long started = System.nanoTime();
         try {
-            return switch (ext) {
-                case "json", "yaml", "yml", "toml" -> structuredDataExtractor.extractStructured(path);
-                case "csv" -> structuredDataExtractor.extractCsv(path);
-                case "xlsx" -> structuredDataExtractor.extractXlsx(path);
-                case "xml" -> structuredDataExtractor.extractXml(path);
-                case "properties", "env", "conf" -> structuredDataExtractor.extractKeyValue(path);
-                default -> Collections.emptyList();
-            };
+            return structured(format, source);
         } catch (IOException ex) {
             return Collections.emptyList();
+        } finally {
+            scanMetrics.extractionCompleted(source.getExtension(), "structured", System.nanoTime() - started);
         }
     }
 
-    private String extractText(Path path) throws IOException {
-        byte[] bytes = Files.readAllBytes(path);
-        if (bytes.length > MAX_BYTES) {
-            return new String(bytes, 0, MAX_BYTES, StandardCharsets.UTF_8);
-        }
-        return new String(bytes, StandardCharsets.UTF_8);
+    private List<StructuredField> structured(ContentFormat format, ContentSource source) throws IOException {
+        return switch (format) {
+            case JSON, YAML, TOML -> structuredDataExtractor.extractStructured(source);
+            case CSV -> structuredDataExtractor.extractCsv(source);
+            case XLSX -> structuredDataExtractor.extractXlsx(source);
+            case XML -> structuredDataExtractor.extractXml(source);
+            case KEY_VALUE -> structuredDataExtractor.extractKeyValue(source);
+            default -> Collections.emptyList();
+        };
     }
 
-    private String extractPdf(Path path) throws IOException {
-        try (PDDocument document = PDDocument.load(path.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+    private Reader openText(ContentFormat format, ContentSource source, long byteBudget) throws IOException {
+        if (!format.isDocument()) {
+            // Decoded lazily as the scan reads; not timed as an extraction.
+            return source.getFile() != null
+                    ? textFileReaderFactory.open(source.getFile(), byteBudget, source.getCharset())
+                    : textFileReaderFactory.open(source.open(), byteBudget, source.getCharset());
+        }
+        long started = System.nanoTime();
+        try {
+            return new StringReader(switch (format) {
+                case PDF -> extractPdf(source);
+                case DOCX -> extractDocx(source);
+                default -> extractXlsx(source);
+            });
+        } finally {
+            scanMetrics.extractionCompleted(source.getExtension(), "text", System.nanoTime() - started);
         }
     }
 
-    private String extractDocx(Path path) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(path);
-             XWPFDocument document = new XWPFDocument(inputStream)) {
-            StringBuilder builder = new StringBuilder();
-            document.getParagraphs().forEach(p -> builder.append(p.getText()).append("\n"));
-            return builder.toString();
+    private String extractText(ContentSource source) throws IOException {
+        try (InputStream inputStream = source.open()) {
+            byte[] bytes = inputStream.readNBytes(MAX_BYTES);
+            return new String(bytes, source.getCharset());
         }
     }
 
-    private String extractXlsx(Path path) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(path);
-             XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
-            StringBuilder builder = new StringBuilder();
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                XSSFSheet sheet = workbook.getSheetAt(i);
-                for (Row row : sheet) {
-                    for (Cell cell : row) {
-                        builder.append(cell.toString()).append("\t");
-                    }
-                    builder.append("\n");
-                }
+    private String extractPdf(ContentSource source) throws IOException {
+        if (source.getFile() != null) {
+            try (PDDocument document = PDDocument.load(source.getFile().toFile())) {
+                return new PDFTextStripper().getText(document);
             }
-            return builder.toString();
+        }
+        try (InputStream inputStream = source.open();
+             PDDocument document = PDDocument.load(inputStream)) {
+            return new PDFTextStripper().getText(document);
         }
     }
 
-    private String extension(String filename) {
-        int idx = filename.lastIndexOf(".");
-        if (idx == -1) {
-            return "";
+    private String extractDocx(ContentSource source) throws IOException {
+        if (source.getFile() != null) {
+            OPCPackage pkg;
+            try {
+                pkg = OPCPackage.open(source.getFile().toFile(), PackageAccess.READ);
+            } catch (InvalidFormatException ex) {
+                throw new IOException("Invalid DOCX file: " + source.getName(), ex);
+            }
+            // Reverted, not closed: closing a read-only package warns that it cannot be saved.
+            try {
+                return paragraphs(new XWPFDocument(pkg));
+            } finally {
+                pkg.revert();
+            }
+        }
+        try (InputStream inputStream = source.open();
+             XWPFDocument document = new XWPFDocument(inputStream)) {
+            return paragraphs(document);
         }
-        return filename.substring(idx + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String paragraphs(XWPFDocument document) {
+        StringBuilder builder = new StringBuilder();
+        document.getParagraphs().forEach(p -> builder.append(p.getText()).append("\n"));
+        return builder.toString();
+    }
+
+    private String extractXlsx(ContentSource source) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        XlsxStreamReader.read(source, Integer.MAX_VALUE, new XlsxStreamReader.CellHandler() {
+            @Override
+            public boolean onCell(String sheetName, int row, int column, String value) {
+                builder.append(value).append("\t");
+                return builder.length() < MAX_BYTES;
+            }
+
+            @Override
+            public void onRowEnd(String sheetName, int row) {
+                builder.append("\n");
+            }
+        });
+        return builder.toString();
     }
 }
@@ -0,0 +1,204 @@
+package ai.titli.darbiter.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Identifies what a file really is from its first {@value #HEADER_BYTES} bytes:
+ * magic numbers for PDF, ZIP/OOXML, gzip, tar, common image and executable formats,
+ * then byte-level heuristics for UTF-16 and for text versus binary. Combined
+ * with the name-derived format in {@link #route}, this skips binaries before
+ * anything else reads them and sends mislabeled files to the right extractor.
+ */
+final class FileTypeDetector {
+    static final int HEADER_BYTES = 4096;
+    private static final int UTF16_SAMPLE_BYTES = 512;
+
+    enum FileType {
+        PDF, DOCX, XLSX, ZIP, GZIP, TAR, IMAGE, EXECUTABLE, BINARY, UTF16, UTF16LE, UTF16BE, TEXT;
+
+        boolean isBinary() {
+            return this == ZIP || this == GZIP || this == TAR || this == IMAGE || this == EXECUTABLE
+                    || this == BINARY;
+        }
+
+        Charset charset() {
+            return switch (this) {
+                case UTF16 -> StandardCharsets.UTF_16;
+                case UTF16LE -> StandardCharsets.UTF_16LE;
+                case UTF16BE -> StandardCharsets.UTF_16BE;
+                default -> StandardCharsets.UTF_8;
+            };
+        }
+    }
+
+    private FileTypeDetector() {
+    }
+
+    /** Reads the header block of {@code file} and classifies it. */
+    static FileType detect(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // A regular file normally fills the block in one read.
+            }
+        }
+        header.flip();
+        return detect(header);
+    }
+
+    /** Classifies the bytes from the buffer's position on, without consuming them. */
+    static FileType detect(ByteBuffer content) {
+        int length = Math.min(content.remaining(), HEADER_BYTES);
+        byte[] h = new byte[length];
+        content.duplicate().get(h);
+        if (startsWith(h, 0, '%', 'P', 'D', 'F', '-')) {
+            return FileType.PDF;
+        }
+        if (startsWith(h, 0, 'P', 'K', 3, 4) || startsWith(h, 0, 'P', 'K', 5, 6)) {
+            return zipType(h);
+        }
+        if (startsWith(h, 0, 0x1F, 0x8B)) {
+            return FileType.GZIP;
+        }
+        if (startsWith(h, 257, 'u', 's', 't', 'a', 'r')) {
+            return FileType.TAR;
+        }
+        if (isImage(h)) {
+            return FileType.IMAGE;
+        }
+        if (isExecutable(h)) {
+            return FileType.EXECUTABLE;
+        }
+        if (startsWith(h, 0, 0xFF, 0xFE) || startsWith(h, 0, 0xFE, 0xFF)) {
+            return FileType.UTF16;
+        }
+        FileType utf16 = utf16WithoutBom(h);
+        if (utf16 != null) {
+            return utf16;
+        }
+        return looksBinary(h) ? FileType.BINARY : FileType.TEXT;
+    }
+
+    /**
+     * The format to extract with. The sniffed type wins for documents and
+     * binaries; text keeps the name-derived format unless the name claims a
+     * binary document.
+     */
+    static ContentFormat route(ContentFormat byName, FileType type) {
+        return switch (type) {
+            case PDF -> ContentFormat.PDF;
+            case DOCX -> ContentFormat.DOCX;
+            case XLSX -> ContentFormat.XLSX;
+            // The header may end before the part names; trust an OOXML extension.
+            case ZIP -> byName == ContentFormat.DOCX || byName == ContentFormat.XLSX
+                    ? byName
+                    : ContentFormat.ARCHIVE;
+            case GZIP, TAR -> ContentFormat.ARCHIVE;
+            case IMAGE, EXECUTABLE, BINARY -> ContentFormat.BINARY;
+            case UTF16, UTF16LE, UTF16BE -> ContentFormat.TEXT;
+            case TEXT -> byName.isDocument() ? ContentFormat.TEXT : byName;
+        };
+    }
+
+    /** OOXML packages name their parts in the local file headers near the start. */
+    private static FileType zipType(byte[] h) {
+        String names = new String(h, StandardCharsets.ISO_8859_1);
+        if (names.contains("word/")) {
+            return FileType.DOCX;
+        }
+        if (names.contains("xl/")) {
+            return FileType.XLSX;
+        }
+        return FileType.ZIP;
+    }
+
+    private static boolean isImage(byte[] h) {
+        return startsWith(h, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)
+                || startsWith(h, 0, 0xFF, 0xD8, 0xFF)
+                || startsWith(h, 0, 'G', 'I', 'F', '8')
+                || (startsWith(h, 0, 'R', 'I', 'F', 'F') && startsWith(h, 8, 'W', 'E', 'B', 'P'))
+                || startsWith(h, 0, 'I', 'I', '*', 0)
+                || startsWith(h, 0, 'M', 'M', 0, '*')
+                || startsWith(h, 0, 0, 0, 1, 0)
+                || (startsWith(h, 0, 'B', 'M') && startsWith(h, 6, 0, 0, 0, 0));
+    }
+
+    private static boolean isExecutable(byte[] h) {
+        return startsWith(h, 0, 0x7F, 'E', 'L', 'F')
+                || (startsWith(h, 0, 'M', 'Z') && h.length >= 64 && indexOfZero(h, 64) >= 0)
+                || startsWith(h, 0, 0xCA, 0xFE, 0xBA, 0xBE)
+                || startsWith(h, 0, 0xFE, 0xED, 0xFA, 0xCE)
+                || startsWith(h, 0, 0xFE, 0xED, 0xFA, 0xCF)
+                || startsWith(h, 0, 0xCE, 0xFA, 0xED, 0xFE)
+                || startsWith(h, 0, 0xCF, 0xFA, 0xED, 0xFE);
+    }
+
+    /**
+     * BOM-less UTF-16 text of mostly ASCII characters has a zero in nearly
+     * every other byte and almost none in the remaining ones.
+     */
+    private static FileType utf16WithoutBom(byte[] h) {
+        int pairs = Math.min(h.length, UTF16_SAMPLE_BYTES) / 2;
+        if (pairs < 8) {
+            return null;
+        }
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < pairs; i++) {
+            if (h[2 * i] == 0) {
+                evenZeros++;
+            }
+            if (h[2 * i + 1] == 0) {
+                oddZeros++;
+            }
+        }
+        if (oddZeros * 10 >= pairs * 7 && evenZeros * 20 <= pairs) {
+            return FileType.UTF16LE;
+        }
+        if (evenZeros * 10 >= pairs * 7 && oddZeros * 20 <= pairs) {
+            return FileType.UTF16BE;
+        }
+        return null;
+    }
+
+    /** Any NUL byte, or more than 10% control characters other than whitespace and ESC. */
+    private static boolean looksBinary(byte[] h) {
+        int control = 0;
+        for (byte b : h) {
+            if (b == 0) {
+                return true;
+            }
+            if ((b & 0xFF) < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x08 && b != 0x1B) {
+                control++;
+            }
+        }
+        return control * 10 > h.length;
+    }
+
+    private static int indexOfZero(byte[] h, int limit) {
+        for (int i = 0; i < Math.min(limit, h.length); i++) {
+            if (h[i] == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] h, int offset, int... magic) {
+        if (h.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((h[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,268 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.FindingFilter;
+import ai.titli.darbiter.model.FindingPage;
+import ai.titli.darbiter.model.RiskLevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Posting lists over one stored scan's findings: ascending finding positions
+ * by category, severity, rule id and file. Built once when the result is
+ * stored; only the prefix cache below changes afterwards.
+ *
+ * <p>A page query walks the shortest posting list that the filter selects,
+ * starting at the cursor, and checks the remaining criteria on each finding,
+ * so a page costs roughly O(page) rather than O(findings). File postings are
+ * stored back to back in file name order, so a path prefix selects one slice
+ * of them; a slice spanning several files is sorted into finding order once
+ * and kept for the following pages of the same query. Pages are always in the
+ * scan's original finding order; the cursor is the position of the first
+ * finding of the next page.
+ */
+final class FindingIndex {
+    static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_CACHED_PREFIXES = 32;
+
+    private final List<Finding> findings;
+    private final int[][] byCategory;
+    private final int[][] bySeverity;
+    private final Map<String, int[]> byRule;
+    private final String[] files;
+    /** Positions grouped by file; file {@code f} owns {@code [fileStart[f], fileStart[f + 1])}. */
+    private final int[] byFile;
+    private final int[] fileStart;
+    private final Map<Long, int[]> byPrefix = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            return size() > MAX_CACHED_PREFIXES;
+        }
+    };
+
+    FindingIndex(List<Finding> findings) {
+        this.findings = findings;
+        Postings[] categories = newPostings(FindingCategory.values().length);
+        Postings[] severities = newPostings(RiskLevel.values().length);
+        Map<String, Postings> rules = new HashMap<>();
+        TreeMap<String, Postings> paths = new TreeMap<>();
+        for (int i = 0; i < findings.size(); i++) {
+            Finding finding = findings.get(i);
+            if (finding.getCategory() != null) {
+                categories[finding.getCategory().ordinal()].add(i);
+            }
+            if (finding.getSeverity() != null) {
+                severities[finding.getSeverity().ordinal()].add(i);
+            }
+            if (finding.getId() != null) {
+                rules.computeIfAbsent(finding.getId(), key -> new Postings()).add(i);
+            }
+            if (finding.getFilePath() != null) {
+                paths.computeIfAbsent(finding.getFilePath(), key -> new Postings()).add(i);
+            }
+        }
+        this.byCategory = toArrays(categories);
+        this.bySeverity = toArrays(severities);
+        this.byRule = new HashMap<>(rules.size() * 2);
+        rules.forEach((rule, postings) -> byRule.put(rule, postings.toArray()));
+        this.files = paths.keySet().toArray(new String[0]);
+        this.fileStart = new int[files.length + 1];
+        Postings grouped = new Postings();
+        int f = 0;
+        for (Postings postings : paths.values()) {
+            fileStart[f++] = grouped.size;
+            grouped.addAll(postings);
+        }
+        fileStart[f] = grouped.size;
+        this.byFile = grouped.toArray();
+    }
+
+    FindingPage page(String scanId, FindingFilter filter, int cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PostingIterator driver = driver(filter, Math.max(0, cursor));
+        List<Finding> page = new ArrayList<>(Math.min(size, 64));
+        String nextCursor = null;
+        for (int position = driver.next(); position >= 0; position = driver.next()) {
+            Finding finding = findings.get(position);
+            if (!matches(finding, filter)) {
+                continue;
+            }
+            if (page.size() == size) {
+                nextCursor = Integer.toString(position);
+                break;
+            }
+            page.add(finding);
+        }
+        return new FindingPage(scanId, page, nextCursor);
+    }
+
+    /** Picks the shortest posting list the filter selects, positioned at {@code from}. */
+    private PostingIterator driver(FindingFilter filter, int from) {
+        int[] best = null;
+        if (filter.getCategory() != null) {
+            best = byCategory[filter.getCategory().ordinal()];
+        }
+        if (filter.getSeverity() != null) {
+            best = shorter(best, bySeverity[filter.getSeverity().ordinal()]);
+        }
+        if (filter.getRuleId() != null) {
+            best = shorter(best, byRule.getOrDefault(filter.getRuleId(), new int[0]));
+        }
+        if (filter.getPathPrefix() != null) {
+            int lo = lowerBound(filter.getPathPrefix());
+            int hi = upperBound(filter.getPathPrefix(), lo);
+            if (best == null || fileStart[hi] - fileStart[lo] < best.length) {
+                return hi - lo == 1
+                        ? new ArrayIterator(byFile, fileStart[lo], fileStart[hi], from)
+                        : new ArrayIterator(prefixPostings(lo, hi), from);
+            }
+        }
+        if (best == null) {
+            return new RangeIterator(from, findings.size());
+        }
+        return new ArrayIterator(best, from);
+    }
+
+    private int lowerBound(String prefix) {
+        int index = Arrays.binarySearch(files, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /** End of the run of file names starting at {@code lo} that share {@code prefix}. */
+    private int upperBound(String prefix, int lo) {
+        int low = lo;
+        int high = files.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (files[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Positions of files {@code [lo, hi)} in finding order, sorted on first use. */
+    private int[] prefixPostings(int lo, int hi) {
+        Long key = ((long) lo << 32) | hi;
+        synchronized (byPrefix) {
+            int[] cached = byPrefix.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int[] positions = Arrays.copyOfRange(byFile, fileStart[lo], fileStart[hi]);
+        Arrays.sort(positions);
+        synchronized (byPrefix) {
+            byPrefix.put(key, positions);
+        }
+        return positions;
+    }
+
+    private static boolean matches(Finding finding, FindingFilter filter) {
+        return (filter.getCategory() == null || filter.getCategory() == finding.getCategory())
+                && (filter.getSeverity() == null || filter.getSeverity() == finding.getSeverity())
+                && (filter.getRuleId() == null || filter.getRuleId().equals(finding.getId()))
+                && (filter.getPathPrefix() == null
+                || (finding.getFilePath() != null && finding.getFilePath().startsWith(filter.getPathPrefix())));
+    }
+
+    private static int[] shorter(int[] current, int[] candidate) {
+        return current == null || candidate.length < current.length ? candidate : current;
+    }
+
+    private static Postings[] newPostings(int count) {
+        Postings[] postings = new Postings[count];
+        for (int i = 0; i < count; i++) {
+            postings[i] = new Postings();
+        }
+        return postings;
+    }
+
+    private static int[][] toArrays(Postings[] postings) {
+        int[][] arrays = new int[postings.length][];
+        for (int i = 0; i < postings.length; i++) {
+            arrays[i] = postings[i].toArray();
+        }
+        return arrays;
+    }
+
+    /** First index in an ascending range whose value is {@code >= from}. */
+    private static int seek(int[] positions, int start, int end, int from) {
+        int index = Arrays.binarySearch(positions, start, end, from);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private interface PostingIterator {
+        /** Next position in ascending order, or -1 when exhausted. */
+        int next();
+    }
+
+    private static final class RangeIterator implements PostingIterator {
+        private final int end;
+        private int position;
+
+        private RangeIterator(int from, int end) {
+            this.position = from;
+            this.end = end;
+        }
+
+        @Override
+        public int next() {
+            return position < end ? position++ : -1;
+        }
+    }
+
+    private static final class ArrayIterator implements PostingIterator {
+        private final int[] positions;
+        private final int end;
+        private int index;
+
+        private ArrayIterator(int[] positions, int from) {
+            this(positions, 0, positions.length, from);
+        }
+
+        private ArrayIterator(int[] positions, int start, int end, int from) {
+            this.positions = positions;
+            this.end = end;
+            this.index = seek(positions, start, end, from);
+        }
+
+        @Override
+        public int next() {
+            return index < end ? positions[index++] : -1;
+        }
+    }
+
+    private static final class Postings {
+        private int[] items = new int[8];
+        private int size;
+
+        private void add(int position) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = position;
+        }
+
+        private void addAll(Postings other) {
+            if (size + other.size > items.length) {
+                items = Arrays.copyOf(items, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
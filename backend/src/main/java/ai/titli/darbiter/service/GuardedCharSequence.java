@@ -0,0 +1,70 @@
+package ai.titli.darbiter.service;
+
+/**
+ * CharSequence view that counts {@link #charAt} calls made by a running
+ * {@link java.util.regex.Matcher} and aborts the match with a
+ * {@link RuleTimeoutException} once a step or wall-clock budget is spent. The
+ * JDK regex engine reads its input only through {@code charAt}, so the step
+ * count tracks backtracking work. One instance is re-armed per rule and input.
+ */
+final class GuardedCharSequence implements CharSequence {
+    private static final int CLOCK_INTERVAL_MASK = 4095;
+
+    private final long maxSteps;
+    private final long maxNanos;
+    private CharSequence delegate;
+    private long steps;
+    private long deadline;
+
+    /**
+     * @param maxSteps {@code charAt} calls allowed per armed input, {@code <= 0} for no limit
+     * @param maxNanos time allowed per armed input, {@code <= 0} for no limit
+     */
+    GuardedCharSequence(long maxSteps, long maxNanos) {
+        this.maxSteps = maxSteps > 0 ? maxSteps : Long.MAX_VALUE;
+        this.maxNanos = maxNanos;
+    }
+
+    CharSequence arm(CharSequence input) {
+        delegate = input;
+        steps = 0;
+        deadline = 0;
+        return this;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++steps > maxSteps) {
+            throw new RuleTimeoutException("step budget of " + maxSteps + " exceeded");
+        }
+        if ((steps & CLOCK_INTERVAL_MASK) == 0 && maxNanos > 0) {
+            checkClock();
+        }
+        return delegate.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return delegate.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    private void checkClock() {
+        // The clock starts at the first check, so short matches never read it.
+        long now = System.nanoTime();
+        if (deadline == 0) {
+            deadline = now + maxNanos;
+        } else if (now > deadline) {
+            throw new RuleTimeoutException("time budget of " + maxNanos / 1_000_000 + " ms exceeded");
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.RuleSet;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk index of path to (size, mtime, content hash, findings) used by
+ * incremental path scans. One index file is kept per scan root, ruleset,
+ * category filter and byte budget; an index written for a different ruleset
+ * name or version is discarded on open.
+ */
+@Component
+public class IncrementalScanIndex {
+    private final Path directory;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public IncrementalScanIndex(@Value("${darbiter.index.dir:${user.home}/.darbiter/index}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    public Session open(Path root, RuleSet ruleSet, Set<FindingCategory> categories, long byteBudget) {
+        Header header = new Header();
+        header.setRoot(root.toAbsolutePath().normalize().toString());
+        header.setRulesetName(ruleSet.getName());
+        header.setRulesetVersion(ruleSet.getVersion());
+        header.setRulesetFingerprint(ruleSet.getFingerprint());
+        header.setCategories(new TreeSet<>(categories == null
+                ? EnumSet.allOf(FindingCategory.class) : categories).toString());
+        header.setByteBudget(byteBudget);
+        Path file = directory.resolve(sha256(header.getRoot() + "|" + header.getCategories()
+                + "|" + header.getRulesetName() + "|" + byteBudget) + ".json.gz");
+        Map<String, Entry> previous = new HashMap<>();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                IndexFile stored = mapper.readValue(in, IndexFile.class);
+                if (header.equals(stored.getHeader())) {
+                    previous = stored.getEntries();
+                }
+            } catch (IOException ex) {
+                previous = new HashMap<>();
+            }
+        }
+        return new Session(file, header, previous);
+    }
+
+    public final class Session {
+        private final Path file;
+        private final Header header;
+        private final Map<String, Entry> previous;
+        private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+        private Session(Path file, Header header, Map<String, Entry> previous) {
+            this.file = file;
+            this.header = header;
+            this.previous = previous;
+        }
+
+        /**
+         * Returns the cached findings if the file is unchanged since the last run,
+         * otherwise {@code null} along with a stamp to pass to {@link #record}.
+         * The file is only hashed when its size matches but its mtime moved, the
+         * one case where the hash decides reuse; other files are scanned anyway
+         * and are recorded without a hash.
+         */
+        public FileCheck check(Path path) throws IOException {
+            String key = path.toString();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            Entry entry = previous.get(key);
+            if (entry == null || entry.getSize() != size) {
+                return new FileCheck(key, size, modified, null, null);
+            }
+            if (entry.getModified() == modified) {
+                current.put(key, entry);
+                return new FileCheck(key, size, modified, entry.getHash(), entry.getFindings());
+            }
+            String hash = hashOf(path);
+            if (hash.equals(entry.getHash())) {
+                Entry touched = new Entry(size, modified, hash, entry.getFindings());
+                current.put(key, touched);
+                return new FileCheck(key, size, modified, hash, entry.getFindings());
+            }
+            return new FileCheck(key, size, modified, hash, null);
+        }
+
+        /**
+         * Stores the findings under the stamp from {@link #check}. If the file's
+         * size or mtime moved while it was scanned, the findings may not match
+         * the stamp, so no entry is kept and the next run scans it again.
+         */
+        public void record(Path path, FileCheck check, List<Finding> findings) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.size() != check.size || attributes.lastModifiedTime().toMillis() != check.modified) {
+                forget(check);
+                return;
+            }
+            current.put(check.key, new Entry(check.size, check.modified, check.hash, new ArrayList<>(findings)));
+        }
+
+        /** Keeps no entry for a file whose scan failed or was incomplete. */
+        public void forget(FileCheck check) {
+            current.remove(check.key);
+        }
+
+        public void save() {
+            IndexFile index = new IndexFile();
+            index.setHeader(header);
+            index.setEntries(new HashMap<>(current));
+            try {
+                Files.createDirectories(directory);
+                Path temp = Files.createTempFile(directory, "index-", ".tmp");
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                    mapper.writeValue(out, index);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to write scan index: " + file, ex);
+            }
+        }
+    }
+
+    public static final class FileCheck {
+        private final String key;
+        private final long size;
+        private final long modified;
+        private final String hash;
+        private final List<Finding> cachedFindings;
+
+        private FileCheck(String key, long size, long modified, String hash, List<Finding> cachedFindings) {
+            this.key = key;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.cachedFindings = cachedFindings;
+        }
+
+        public boolean isUnchanged() {
+            return cachedFindings != null;
+        }
+
+        public List<Finding> getCachedFindings() {
+            return cachedFindings;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    private String hashOf(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static class IndexFile {
+        private Header header;
+        private Map<String, Entry> entries = new HashMap<>();
+
+        public Header getHeader() {
+            return header;
+        }
+
+        public void setHeader(Header header) {
+            this.header = header;
+        }
+
+        public Map<String, Entry> getEntries() {
+            return entries;
+        }
+
+        public void setEntries(Map<String, Entry> entries) {
+            this.entries = entries == null ? new HashMap<>() : entries;
+        }
+    }
+
+    public static class Header {
+        private String root;
+        private String rulesetName;
+        private String rulesetVersion;
+        private String rulesetFingerprint;
+        private String categories;
+        private long byteBudget;
+
+        public String getRoot() {
+            return root;
+        }
+
+        public void setRoot(String root) {
+            this.root = root;
+        }
+
+        public String getRulesetName() {
+            return rulesetName;
+        }
+
+        public void setRulesetName(String rulesetName) {
+            this.rulesetName = rulesetName;
+        }
+
+        public String getRulesetVersion() {
+            return rulesetVersion;
+        }
+
+        public void setRulesetVersion(String rulesetVersion) {
+            this.rulesetVersion = rulesetVersion;
+        }
+
+        public String getRulesetFingerprint() {
+            return rulesetFingerprint;
+        }
+
+        public void setRulesetFingerprint(String rulesetFingerprint) {
+            this.rulesetFingerprint = rulesetFingerprint;
+        }
+
+        public String getCategories() {
+            return categories;
+        }
+
+        public void setCategories(String categories) {
+            this.categories = categories;
+        }
+
+        public long getByteBudget() {
+            return byteBudget;
+        }
+
+        public void setByteBudget(long byteBudget) {
+            this.byteBudget = byteBudget;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Header other)) {
+                return false;
+            }
+            return byteBudget == other.byteBudget
+                    && Objects.equals(root, other.root)
+                    && Objects.equals(rulesetName, other.rulesetName)
+                    && Objects.equals(rulesetVersion, other.rulesetVersion)
+                    && Objects.equals(rulesetFingerprint, other.rulesetFingerprint)
+                    && Objects.equals(categories, other.categories);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(root, rulesetName, rulesetVersion, rulesetFingerprint, categories, byteBudget);
+        }
+    }
+
+    public static class Entry {
+        private long size;
+        private long modified;
+        private String hash;
+        private List<Finding> findings = new ArrayList<>();
+
+        public Entry() {
+        }
+
+        public Entry(long size, long modified, String hash, List<Finding> findings) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.findings = findings;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+
+        public void setModified(long modified) {
+            this.modified = modified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public List<Finding> getFindings() {
+            return findings;
+        }
+
+        public void setFindings(List<Finding> findings) {
+            this.findings = findings == null ? new ArrayList<>() : findings;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ai.titli.darbiter.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a character stream into lines using the same terminators as the regex
+ * {@code \R}, handing each line to a callback as a view over one reusable
+ * buffer. Lines longer than the buffer are delivered as overlapping windows of
+ * the same line number; each window carries the range of match start offsets
+ * it is responsible for so that a match is reported exactly once even when it
+ * straddles a window boundary, provided it is no longer than the overlap.
+ *
+ * <p>Instances hold their buffer and are not thread-safe.
+ */
+final class LineScanner {
+    private static final int LOOKBEHIND = 64;
+
+    private final char[] buffer;
+    private final int overlap;
+    private final CharWindow window = new CharWindow();
+
+    LineScanner(int capacity, int overlap) {
+        if (overlap + LOOKBEHIND >= capacity) {
+            throw new IllegalArgumentException("Window overlap must be smaller than the buffer");
+        }
+        this.buffer = new char[capacity];
+        this.overlap = overlap;
+    }
+
+    @FunctionalInterface
+    interface LineHandler {
+        /**
+         * @param line        the line, or a window of it; only valid during the call
+         * @param lineNumber  1-based line number
+         * @param reportFrom  first match start offset this call should report
+         * @param reportUntil match start offsets at or past this belong to the next window
+         */
+        void onLine(CharSequence line, int lineNumber, int reportFrom, int reportUntil);
+    }
+
+    /**
+     * Scans the reader to the end and returns the number of lines seen.
+     */
+    int scan(Reader reader, LineHandler handler) throws IOException {
+        int start = 0;
+        int pos = 0;
+        int end = 0;
+        int lineNumber = 1;
+        int reportFrom = 0;
+        boolean pendingCr = false;
+        while (true) {
+            if (pos == end) {
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    pos -= start;
+                    end -= start;
+                    start = 0;
+                }
+                if (end == buffer.length) {
+                    int reportUntil = end - overlap;
+                    handler.onLine(window.set(buffer, 0, end), lineNumber, reportFrom, reportUntil);
+                    int keepFrom = reportUntil - LOOKBEHIND;
+                    System.arraycopy(buffer, keepFrom, buffer, 0, end - keepFrom);
+                    end -= keepFrom;
+                    pos = end;
+                    reportFrom = LOOKBEHIND;
+                }
+                int read = reader.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    break;
+                }
+                end += read;
+                continue;
+            }
+            char c = buffer[pos];
+            if (pendingCr) {
+                pendingCr = false;
+                if (c == '\n') {
+                    pos++;
+                    start = pos;
+                    continue;
+                }
+            }
+            if (isTerminator(c)) {
+                int length = pos - start;
+                handler.onLine(window.set(buffer, start, length), lineNumber, reportFrom, length);
+                lineNumber++;
+                reportFrom = 0;
+                if (c == '\r') {
+                    if (pos + 1 < end) {
+                        if (buffer[pos + 1] == '\n') {
+                            pos++;
+                        }
+                    } else {
+                        pendingCr = true;
+                    }
+                }
+                pos++;
+                start = pos;
+            } else {
+                pos++;
+            }
+        }
+        if (start < end || reportFrom > 0) {
+            int length = end - start;
+            handler.onLine(window.set(buffer, start, length), lineNumber, reportFrom, length);
+            return lineNumber;
+        }
+        return lineNumber - 1;
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\u000C'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
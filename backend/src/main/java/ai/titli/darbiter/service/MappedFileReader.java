@@ -0,0 +1,113 @@
+package ai.titli.darbiter.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader that decodes a file straight out of read-only memory-mapped chunks.
+ * Bytes are never copied onto the heap; only the caller's char buffer is
+ * filled. Reading stops after {@code byteLimit} bytes, and only one chunk is
+ * mapped at a time, so arbitrarily large files can be scanned.
+ */
+final class MappedFileReader extends Reader {
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final long end;
+    private final int chunkBytes;
+    private final CharBuffer spill = CharBuffer.allocate(2);
+    private ByteBuffer chunk;
+    private long chunkStart;
+    private char[] lastArray;
+    private CharBuffer target;
+    private boolean flushed;
+    private char pending;
+    private boolean hasPending;
+
+    MappedFileReader(Path file, Charset charset, long byteLimit, int chunkBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        this.end = byteLimit > 0 ? Math.min(size, byteLimit) : size;
+        this.chunkBytes = chunkBytes;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chunk = ByteBuffer.allocate(0);
+        this.chunkStart = 0;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (hasPending) {
+            cbuf[off] = pending;
+            hasPending = false;
+            return 1;
+        }
+        if (len == 1) {
+            // A supplementary code point decodes to two chars; spill the second.
+            spill.clear();
+            if (fill(spill) < 0) {
+                return -1;
+            }
+            spill.flip();
+            cbuf[off] = spill.get();
+            if (spill.hasRemaining()) {
+                pending = spill.get();
+                hasPending = true;
+            }
+            return 1;
+        }
+        if (cbuf != lastArray) {
+            lastArray = cbuf;
+            target = CharBuffer.wrap(cbuf);
+        }
+        target.limit(off + len).position(off);
+        return fill(target);
+    }
+
+    private int fill(CharBuffer out) throws IOException {
+        int start = out.position();
+        while (out.position() == start) {
+            boolean lastChunk = chunkStart + chunk.limit() >= end;
+            if (!chunk.hasRemaining() && lastChunk) {
+                if (!flushed) {
+                    decoder.decode(chunk, out, true);
+                    decoder.flush(out);
+                    flushed = true;
+                    continue;
+                }
+                return -1;
+            }
+            CoderResult result = decoder.decode(chunk, out, lastChunk);
+            if (result.isUnderflow() && out.position() == start && !lastChunk) {
+                mapNext();
+            } else if (result.isError()) {
+                result.throwException();
+            }
+        }
+        return out.position() - start;
+    }
+
+    private void mapNext() throws IOException {
+        long next = chunkStart + chunk.position();
+        long length = Math.min(chunkBytes, end - next);
+        chunk = channel.map(FileChannel.MapMode.READ_ONLY, next, length);
+        chunkStart = next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,57 @@
+package ai.titli.darbiter.service;
+
+/**
+ * Finds rule matches in a single line or field of input. Engines are built once
+ * per compiled ruleset and shared between threads, so implementations must not
+ * keep per-call state in fields; reusable per-call state lives in a
+ * {@link Session}.
+ */
+public interface MatchEngine {
+
+    /**
+     * Reports every match of every rule in {@code input}, grouped by rule in
+     * ruleset order.
+     */
+    default void scan(CharSequence input, MatchListener listener) {
+        newSession().scan(input, listener, null);
+    }
+
+    /**
+     * Same as {@link #scan(CharSequence, MatchListener)}, additionally adding
+     * each evaluated rule's regex time and match count to {@code stats} when it
+     * is non-null.
+     */
+    default void scan(CharSequence input, MatchListener listener, RuleStats stats) {
+        newSession().scan(input, listener, stats);
+    }
+
+    default Session newSession() {
+        return newSession(null);
+    }
+
+    /**
+     * Opens a single-threaded session that keeps one {@link java.util.regex.Matcher}
+     * per rule and {@code reset}s it for every input, so scanning many short
+     * lines or fields does not allocate a matcher per rule per input. A non-null
+     * {@code guard} bounds each rule run and skips rules it has disabled.
+     */
+    Session newSession(RuleGuard guard);
+
+    interface Session {
+        default void scan(CharSequence input, MatchListener listener, RuleStats stats) {
+            scan(input, null, listener, stats);
+        }
+
+        /**
+         * Scans one input; {@code structuredPath} is the field path for
+         * structured data and {@code null} for text lines. Rules whose
+         * applicability excludes the path or the input length are skipped.
+         */
+        void scan(CharSequence input, String structuredPath, MatchListener listener, RuleStats stats);
+    }
+
+    @FunctionalInterface
+    interface MatchListener {
+        void onMatch(CompiledRule rule, int start, int end);
+    }
+}
@@ -0,0 +1,69 @@
+package ai.titli.darbiter.service;
+
+import java.util.Arrays;
+
+/**
+ * Builds JSONPath-like labels ({@code $.spec.containers[0].env[2].value})
+ * while streaming tokens. One builder is reused for a whole document: each
+ * nesting level remembers where its prefix ends, so moving to the next key or
+ * array element truncates and appends instead of re-concatenating the path.
+ */
+final class PathBuilder {
+    private static final int OBJECT = -1;
+
+    private final StringBuilder path = new StringBuilder("$");
+    private int[] prefixLengths = new int[16];
+    private int[] nextIndexes = new int[16];
+    private int depth;
+
+    /** Starts a new root value. */
+    void reset() {
+        path.setLength(1);
+        depth = 0;
+    }
+
+    /** Positions the path on the next value of the enclosing container. */
+    void beforeValue() {
+        if (depth > 0 && nextIndexes[depth - 1] != OBJECT) {
+            path.setLength(prefixLengths[depth - 1]);
+            path.append('[').append(nextIndexes[depth - 1]++).append(']');
+        }
+    }
+
+    void field(String name) {
+        path.setLength(prefixLengths[depth - 1]);
+        path.append('.').append(name);
+    }
+
+    void startObject() {
+        push(OBJECT);
+    }
+
+    void startArray() {
+        push(0);
+    }
+
+    void end() {
+        depth--;
+        path.setLength(prefixLengths[depth]);
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    private void push(int nextIndex) {
+        if (depth == prefixLengths.length) {
+            prefixLengths = Arrays.copyOf(prefixLengths, depth * 2);
+            nextIndexes = Arrays.copyOf(nextIndexes, depth * 2);
+        }
+        prefixLengths[depth] = path.length();
+        nextIndexes[depth] = nextIndex;
+        depth++;
+    }
+}
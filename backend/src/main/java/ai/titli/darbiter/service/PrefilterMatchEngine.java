@@ -0,0 +1,69 @@
+package ai.titli.darbiter.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass engine: an Aho-Corasick automaton over the literals each rule's
+ * regex requires (see {@link RegexLiterals}) scans the input once, and only
+ * rules whose literal occurred run their full regex. Rules without an
+ * extractable literal always run.
+ */
+final class PrefilterMatchEngine implements MatchEngine {
+    private final CompiledRule[] rules;
+    private final boolean[] alwaysRun;
+    private final AhoCorasick automaton;
+
+    PrefilterMatchEngine(List<CompiledRule> rules) {
+        this.rules = rules.toArray(new CompiledRule[0]);
+        this.alwaysRun = new boolean[this.rules.length];
+        Map<String, List<Integer>> literalToRules = new LinkedHashMap<>();
+        for (int i = 0; i < this.rules.length; i++) {
+            Set<String> literals = RegexLiterals.requiredLiterals(this.rules[i].getRule().getRegex());
+            if (literals.isEmpty()) {
+                alwaysRun[i] = true;
+                continue;
+            }
+            for (String literal : literals) {
+                literalToRules.computeIfAbsent(literal, key -> new ArrayList<>()).add(i);
+            }
+        }
+        List<String> keywords = new ArrayList<>(literalToRules.keySet());
+        List<int[]> payloads = new ArrayList<>();
+        for (List<Integer> ruleIndexes : literalToRules.values()) {
+            payloads.add(ruleIndexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.automaton = keywords.isEmpty() ? null : new AhoCorasick(keywords, payloads);
+    }
+
+    @Override
+    public Session newSession(RuleGuard guard) {
+        return new PrefilterSession(guard);
+    }
+
+    private final class PrefilterSession implements Session {
+        private final boolean[] candidates = new boolean[rules.length];
+        private final RuleMatchers matchers;
+
+        private PrefilterSession(RuleGuard guard) {
+            this.matchers = new RuleMatchers(rules.length, guard);
+        }
+
+        @Override
+        public void scan(CharSequence input, String path, MatchListener listener, RuleStats stats) {
+            Arrays.fill(candidates, false);
+            if (automaton != null) {
+                automaton.scan(input, candidates);
+            }
+            for (int i = 0; i < rules.length; i++) {
+                if (alwaysRun[i] || candidates[i]) {
+                    matchers.run(i, rules[i], input, path, listener, stats);
+                }
+            }
+        }
+    }
+}
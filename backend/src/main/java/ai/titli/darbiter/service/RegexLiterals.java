@@ -0,0 +1,296 @@
+package ai.titli.darbiter.service;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Extracts literal substrings that every match of a regex must contain, e.g.
+ * {@code AKIA} from {@code \bAKIA[0-9A-Z]{16}\b} or {@code {password, passwd, pwd}}
+ * from {@code (password|passwd|pwd)}. A match contains at least one of the
+ * returned strings, compared case-insensitively.
+ *
+ * <p>The parser is deliberately conservative: any construct it does not fully
+ * understand yields an empty set, which means "no usable literal" and makes the
+ * rule fall back to running its regex on every input.
+ */
+final class RegexLiterals {
+    private final String regex;
+    private int pos;
+
+    private RegexLiterals(String regex) {
+        this.regex = regex;
+    }
+
+    static Set<String> requiredLiterals(String regex) {
+        if (regex == null || regex.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            RegexLiterals parser = new RegexLiterals(regex);
+            Set<String> literals = parser.parseAlternation();
+            if (literals == null || parser.pos != regex.length()) {
+                return Set.of();
+            }
+            return literals;
+        } catch (Unsupported | RuntimeException ex) {
+            return Set.of();
+        }
+    }
+
+    private Set<String> parseAlternation() throws Unsupported {
+        Set<String> union = new LinkedHashSet<>();
+        boolean complete = true;
+        while (true) {
+            Set<String> branch = parseSequence();
+            if (branch == null) {
+                complete = false;
+            } else {
+                union.addAll(branch);
+            }
+            if (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+                continue;
+            }
+            break;
+        }
+        return complete && !union.isEmpty() ? union : null;
+    }
+
+    private Set<String> parseSequence() throws Unsupported {
+        Set<String> best = null;
+        StringBuilder run = new StringBuilder();
+        while (pos < regex.length()) {
+            char c = regex.charAt(pos);
+            if (c == '|' || c == ')') {
+                break;
+            }
+            if (c == '(') {
+                best = better(best, flush(run));
+                Set<String> group = parseGroup();
+                int min = parseQuantifier();
+                if (min > 0) {
+                    best = better(best, group);
+                }
+            } else if (c == '[') {
+                best = better(best, flush(run));
+                skipCharClass();
+                parseQuantifier();
+            } else if (c == '\\') {
+                int literal = parseEscape();
+                int min = parseQuantifier();
+                if (literal < 0) {
+                    best = better(best, flush(run));
+                } else if (min == 1) {
+                    run.append((char) literal);
+                } else {
+                    if (min > 1) {
+                        run.append((char) literal);
+                    }
+                    best = better(best, flush(run));
+                }
+            } else if (c == '.' || c == '^' || c == '$') {
+                pos++;
+                best = better(best, flush(run));
+                parseQuantifier();
+            } else {
+                pos++;
+                int min = parseQuantifier();
+                if (min == 1) {
+                    run.append(c);
+                } else {
+                    if (min > 1) {
+                        run.append(c);
+                    }
+                    best = better(best, flush(run));
+                }
+            }
+        }
+        return better(best, flush(run));
+    }
+
+    private Set<String> parseGroup() throws Unsupported {
+        pos++;
+        boolean lookaround = false;
+        if (pos < regex.length() && regex.charAt(pos) == '?') {
+            pos++;
+            char kind = regex.charAt(pos);
+            if (kind == ':' || kind == '>') {
+                pos++;
+            } else if (kind == '=' || kind == '!') {
+                pos++;
+                lookaround = true;
+            } else if (kind == '<') {
+                char next = regex.charAt(pos + 1);
+                if (next == '=' || next == '!') {
+                    pos += 2;
+                    lookaround = true;
+                } else {
+                    int close = regex.indexOf('>', pos);
+                    if (close < 0) {
+                        throw new Unsupported();
+                    }
+                    pos = close + 1;
+                }
+            } else {
+                // Inline flags: (?i) or (?i-s:...). Comments mode changes parsing.
+                int start = pos;
+                while (pos < regex.length() && regex.charAt(pos) != ')' && regex.charAt(pos) != ':') {
+                    pos++;
+                }
+                String flags = regex.substring(start, pos);
+                if (flags.indexOf('x') >= 0) {
+                    throw new Unsupported();
+                }
+                if (regex.charAt(pos) == ')') {
+                    pos++;
+                    return null;
+                }
+                pos++;
+            }
+        }
+        Set<String> inner = parseAlternation();
+        if (pos >= regex.length() || regex.charAt(pos) != ')') {
+            throw new Unsupported();
+        }
+        pos++;
+        return lookaround ? null : inner;
+    }
+
+    /**
+     * Consumes the quantifier at the cursor, if any. Returns 0 when the preceding
+     * atom is optional, 1 when it occurs exactly once and 2 when it is required
+     * but may repeat.
+     */
+    private int parseQuantifier() {
+        if (pos >= regex.length()) {
+            return 1;
+        }
+        char c = regex.charAt(pos);
+        int min;
+        if (c == '?' || c == '*') {
+            pos++;
+            min = 0;
+        } else if (c == '+') {
+            pos++;
+            min = 2;
+        } else if (c == '{') {
+            int close = regex.indexOf('}', pos);
+            if (close < 0) {
+                return 1;
+            }
+            String body = regex.substring(pos + 1, close);
+            int comma = body.indexOf(',');
+            String lower = comma < 0 ? body : body.substring(0, comma);
+            try {
+                min = Integer.parseInt(lower.trim());
+            } catch (NumberFormatException ex) {
+                return 1;
+            }
+            boolean exact = comma < 0 && min == 1;
+            pos = close + 1;
+            min = exact ? 1 : (min == 0 ? 0 : 2);
+        } else {
+            return 1;
+        }
+        if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+            pos++;
+        }
+        return min;
+    }
+
+    /**
+     * Consumes an escape sequence and returns the literal character it denotes,
+     * or -1 for classes, anchors and anything else that is not a plain literal.
+     */
+    private int parseEscape() throws Unsupported {
+        pos++;
+        char c = regex.charAt(pos++);
+        if (c == 'Q') {
+            throw new Unsupported();
+        }
+        if (c == 'p' || c == 'P') {
+            if (pos < regex.length() && regex.charAt(pos) == '{') {
+                pos = regex.indexOf('}', pos) + 1;
+            } else {
+                pos++;
+            }
+            return -1;
+        }
+        if (c == 'k') {
+            pos = regex.indexOf('>', pos) + 1;
+            return -1;
+        }
+        if (c == 'x' || c == 'u' || c == 'c' || c == '0') {
+            throw new Unsupported();
+        }
+        if (Character.isLetterOrDigit(c)) {
+            return -1;
+        }
+        return c;
+    }
+
+    private void skipCharClass() {
+        pos++;
+        if (pos < regex.length() && regex.charAt(pos) == '^') {
+            pos++;
+        }
+        if (pos < regex.length() && regex.charAt(pos) == ']') {
+            pos++;
+        }
+        int depth = 1;
+        while (pos < regex.length() && depth > 0) {
+            char c = regex.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            }
+            pos++;
+        }
+    }
+
+    private Set<String> flush(StringBuilder run) {
+        if (run.length() == 0) {
+            return null;
+        }
+        for (int i = 0; i < run.length(); i++) {
+            run.setCharAt(i, Character.toLowerCase(run.charAt(i)));
+        }
+        String literal = run.toString();
+        run.setLength(0);
+        return Set.of(literal);
+    }
+
+    private static Set<String> better(Set<String> current, Set<String> candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        if (current == null) {
+            return candidate;
+        }
+        int currentScore = shortest(current);
+        int candidateScore = shortest(candidate);
+        if (candidateScore != currentScore) {
+            return candidateScore > currentScore ? candidate : current;
+        }
+        return candidate.size() < current.size() ? candidate : current;
+    }
+
+    private static int shortest(Set<String> literals) {
+        int min = Integer.MAX_VALUE;
+        for (String literal : literals) {
+            min = Math.min(min, literal.length());
+        }
+        return min;
+    }
+
+    private static final class Unsupported extends Exception {
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ai.titli.darbiter.service;
+
+import java.util.List;
+
+/**
+ * Baseline engine: runs every rule's regex over the whole input.
+ */
+final class RegexMatchEngine implements MatchEngine {
+    private final CompiledRule[] rules;
+
+    RegexMatchEngine(List<CompiledRule> rules) {
+        this.rules = rules.toArray(new CompiledRule[0]);
+    }
+
+    @Override
+    public Session newSession(RuleGuard guard) {
+        RuleMatchers matchers = new RuleMatchers(rules.length, guard);
+        return (input, path, listener, stats) -> {
+            for (int i = 0; i < rules.length; i++) {
+                matchers.run(i, rules[i], input, path, listener, stats);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingLocation;
+import ai.titli.darbiter.model.RemediationGroup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates findings into one {@link RemediationGroup} per rule as they
+ * arrive, keeping a count and the first {@value #MAX_SAMPLES} locations.
+ * Not thread-safe.
+ */
+public final class RemediationGroups {
+    static final int MAX_SAMPLES = 5;
+
+    private final Map<String, RemediationGroup> groups = new LinkedHashMap<>();
+
+    public void add(Finding finding) {
+        String key = finding.getId() + '|' + finding.getCategory();
+        RemediationGroup group = groups.get(key);
+        if (group == null) {
+            group = new RemediationGroup(finding.getId(), finding.getLabel(), finding.getCategory(),
+                    finding.getSeverity());
+            group.setActions(RemediationService.actionsFor(finding.getCategory()));
+            groups.put(key, group);
+        } else if (finding.getSeverity() != null
+                && (group.getSeverity() == null || finding.getSeverity().compareTo(group.getSeverity()) > 0)) {
+            group.setSeverity(finding.getSeverity());
+        }
+        group.setCount(group.getCount() + 1);
+        if (group.getSamples().size() < MAX_SAMPLES) {
+            group.getSamples().add(new FindingLocation(finding.getFilePath(), finding.getLineNumber()));
+        }
+    }
+
+    public void addAll(List<Finding> findings) {
+        for (Finding finding : findings) {
+            add(finding);
+        }
+    }
+
+    /** Groups ordered by severity, highest first, then by count. */
+    public List<RemediationGroup> toList() {
+        List<RemediationGroup> sorted = new ArrayList<>(groups.values());
+        sorted.sort(Comparator.comparing(RemediationGroup::getSeverity,
+                        Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(Comparator.comparingLong(RemediationGroup::getCount).reversed()));
+        return sorted;
+    }
+}
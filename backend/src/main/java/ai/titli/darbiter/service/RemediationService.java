@@ -10,25 +10,38 @@ import java.util.List;
 
 @Service
 public class RemediationService {
+    private static final List<String> SECRET_ACTIONS = List.of(
+            "Rotate or revoke secret.",
+            "Mask value in files.",
+            "Exclude file from AI datasets.");
+    private static final List<String> PII_ACTIONS = List.of(
+            "Mask or tokenize sensitive fields.",
+            "Replace with synthetic data.",
+            "Limit access to approved usage.");
+    private static final List<String> CONFIG_RISK_ACTIONS = List.of(
+            "Harden configuration defaults.",
+            "Disable insecure flags.",
+            "Move secrets to vault.");
+
+    /** One item per finding; only built when a scan asks for it. */
     public List<RemediationItem> recommend(List<Finding> findings) {
-        List<RemediationItem> recommendations = new ArrayList<>();
+        List<RemediationItem> recommendations = new ArrayList<>(findings.size());
         for (Finding finding : findings) {
-            List<String> actions = new ArrayList<>();
-            if (finding.getCategory() == FindingCategory.SECRET) {
-                actions.add("Rotate or revoke secret.");
-                actions.add("Mask value in files.");
-                actions.add("Exclude file from AI datasets.");
-            } else if (finding.getCategory() == FindingCategory.PII) {
-                actions.add("Mask or tokenize sensitive fields.");
-                actions.add("Replace with synthetic data.");
-                actions.add("Limit access to approved usage.");
-            } else if (finding.getCategory() == FindingCategory.CONFIG_RISK) {
-                actions.add("Harden configuration defaults.");
-                actions.add("Disable insecure flags.");
-                actions.add("Move secrets to vault.");
-            }
-            recommendations.add(new RemediationItem(finding.getId(), finding.getLabel(), actions));
+            recommendations.add(new RemediationItem(finding.getId(), finding.getLabel(),
+                    actionsFor(finding.getCategory())));
         }
         return recommendations;
     }
+
+    /** Shared, immutable action list for a category. */
+    static List<String> actionsFor(FindingCategory category) {
+        if (category == null) {
+            return List.of();
+        }
+        return switch (category) {
+            case SECRET -> SECRET_ACTIONS;
+            case PII -> PII_ACTIONS;
+            case CONFIG_RISK -> CONFIG_RISK_ACTIONS;
+        };
+    }
 }
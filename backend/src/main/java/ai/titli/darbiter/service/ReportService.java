@@ -51,14 +51,15 @@ public class ReportService {
             }
             builder.append("</ul>");
         }
-        if (result.getRemediation() != null && !result.getRemediation().isEmpty()) {
+        if (result.getRemediationGroups() != null && !result.getRemediationGroups().isEmpty()) {
             builder.append("<h2>Remediation Guidance</h2>");
             builder.append("<ul>");
-            result.getRemediation().forEach(item -> {
+            result.getRemediationGroups().forEach(group -> {
                 builder.append("<li>")
-                        .append(escape(item.getLabel()))
+                        .append(escape(group.getLabel()))
+                        .append(" (").append(group.getCount()).append(")")
                         .append("<ul>");
-                item.getActions().forEach(action -> builder.append("<li>").append(escape(action)).append("</li>"));
+                group.getActions().forEach(action -> builder.append("<li>").append(escape(action)).append("</li>"));
                 builder.append("</ul></li>");
             });
             builder.append("</ul>");
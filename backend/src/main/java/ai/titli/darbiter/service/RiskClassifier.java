@@ -10,27 +10,20 @@ import java.util.List;
 @Service
 public class RiskClassifier {
     public RiskSummary summarize(List<Finding> findings) {
+        return summarize(RiskTally.of(findings));
+    }
+
+    public RiskSummary summarize(RiskTally tally) {
         RiskSummary summary = new RiskSummary();
-        int critical = 0;
-        int high = 0;
-        int medium = 0;
-        int low = 0;
-        for (Finding finding : findings) {
-            if (finding.getSeverity() == RiskLevel.CRITICAL) {
-                critical++;
-            } else if (finding.getSeverity() == RiskLevel.HIGH) {
-                high++;
-            } else if (finding.getSeverity() == RiskLevel.MEDIUM) {
-                medium++;
-            } else {
-                low++;
-            }
-        }
+        int critical = (int) tally.count(RiskLevel.CRITICAL);
+        int high = (int) tally.count(RiskLevel.HIGH);
+        int medium = (int) tally.count(RiskLevel.MEDIUM);
+        int low = (int) tally.count(RiskLevel.LOW);
         summary.setCritical(critical);
         summary.setHigh(high);
         summary.setMedium(medium);
         summary.setLow(low);
-        summary.setTotalFindings(findings.size());
+        summary.setTotalFindings((int) tally.total());
         summary.setOverall(overall(critical, high, medium, low));
         return summary;
     }
@@ -0,0 +1,64 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.RiskLevel;
+
+import java.util.List;
+
+/**
+ * Running finding counts by category and severity. Everything the risk
+ * summary, eligibility decision and scan metrics need is derived from these
+ * counts, so a scan can stream its findings out and keep only the tally.
+ * Not thread-safe.
+ */
+public final class RiskTally {
+    private static final int NO_CATEGORY = FindingCategory.values().length;
+
+    private final long[][] counts = new long[NO_CATEGORY + 1][RiskLevel.values().length];
+    private long total;
+
+    public static RiskTally of(List<Finding> findings) {
+        RiskTally tally = new RiskTally();
+        tally.addAll(findings);
+        return tally;
+    }
+
+    public void add(Finding finding) {
+        int category = finding.getCategory() == null ? NO_CATEGORY : finding.getCategory().ordinal();
+        // Findings without a severity count as LOW, as they always have in the summary.
+        RiskLevel severity = finding.getSeverity() == null ? RiskLevel.LOW : finding.getSeverity();
+        counts[category][severity.ordinal()]++;
+        total++;
+    }
+
+    public void addAll(List<Finding> findings) {
+        for (Finding finding : findings) {
+            add(finding);
+        }
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public long count(RiskLevel severity) {
+        long sum = 0;
+        for (long[] row : counts) {
+            sum += row[severity.ordinal()];
+        }
+        return sum;
+    }
+
+    public long count(FindingCategory category) {
+        long sum = 0;
+        for (long count : counts[category.ordinal()]) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    public long count(FindingCategory category, RiskLevel severity) {
+        return counts[category.ordinal()][severity.ordinal()];
+    }
+}
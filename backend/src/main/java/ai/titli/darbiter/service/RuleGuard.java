@@ -0,0 +1,63 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.DiagnosticKind;
+import ai.titli.darbiter.model.ScanDiagnostic;
+
+import java.util.List;
+
+/**
+ * Per-call execution guard for rule regexes. Arms a {@link GuardedCharSequence}
+ * for each rule run, records budget overruns as scan diagnostics and, after
+ * {@code disableAfter} overruns of the same rule within one scan, disables that
+ * rule for the rest of the scan. Disabled rules are shared through the
+ * {@link ScanContext}, so parallel file workers stop running a rule as soon as
+ * any of them gives up on it. Single-threaded, like a match session.
+ */
+final class RuleGuard {
+    private final ScanContext context;
+    private final String source;
+    private final List<CompiledRule> rules;
+    private final int disableAfter;
+    private final ScanMetrics scanMetrics;
+    private final GuardedCharSequence subject;
+    private final boolean[] disabled;
+    private int seenDisabledVersion = -1;
+
+    RuleGuard(ScanContext context, String source, List<CompiledRule> rules,
+              long maxSteps, long maxMillis, int disableAfter, ScanMetrics scanMetrics) {
+        this.context = context;
+        this.source = source;
+        this.rules = rules;
+        this.disableAfter = disableAfter;
+        this.scanMetrics = scanMetrics;
+        this.subject = new GuardedCharSequence(maxSteps, maxMillis * 1_000_000L);
+        this.disabled = new boolean[rules.size()];
+    }
+
+    boolean isDisabled(CompiledRule rule) {
+        int version = context.getDisabledRulesVersion();
+        if (version != seenDisabledVersion) {
+            seenDisabledVersion = version;
+            for (CompiledRule candidate : rules) {
+                disabled[candidate.getIndex()] = context.isRuleDisabled(candidate.getRule().getId());
+            }
+        }
+        return disabled[rule.getIndex()];
+    }
+
+    CharSequence arm(CharSequence input) {
+        return subject.arm(input);
+    }
+
+    void timedOut(CompiledRule rule, RuleTimeoutException ex) {
+        String ruleId = rule.getRule().getId();
+        scanMetrics.ruleTimedOut(ruleId);
+        int timeouts = context.ruleTimedOut(ruleId);
+        context.addDiagnostic(new ScanDiagnostic(DiagnosticKind.RULE_TIMEOUT, source, ruleId,
+                "Rule aborted: " + ex.getMessage()));
+        if (disableAfter > 0 && timeouts >= disableAfter && context.disableRule(ruleId)) {
+            context.addDiagnostic(new ScanDiagnostic(DiagnosticKind.RULE_DISABLED, source, ruleId,
+                    "Rule disabled for the rest of the scan after " + timeouts + " aborted runs"));
+        }
+    }
+}
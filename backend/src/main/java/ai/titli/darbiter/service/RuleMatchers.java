@@ -0,0 +1,46 @@
+package ai.titli.darbiter.service;
+
+import java.util.regex.Matcher;
+
+/**
+ * Per-session matcher state shared by the engines: one lazily created
+ * {@link Matcher} per rule, reset for every input, with optional timing,
+ * {@link RuleGuard} enforcement and per-input applicability checks.
+ */
+final class RuleMatchers {
+    private final Matcher[] matchers;
+    private final RuleGuard guard;
+
+    RuleMatchers(int ruleCount, RuleGuard guard) {
+        this.matchers = new Matcher[ruleCount];
+        this.guard = guard;
+    }
+
+    void run(int slot, CompiledRule rule, CharSequence input, String path, MatchEngine.MatchListener listener,
+             RuleStats stats) {
+        CompiledApplicability applicability = rule.getApplicability();
+        if (input.length() < applicability.minLineLength() || !applicability.appliesToPath(path)) {
+            return;
+        }
+        if (guard != null && guard.isDisabled(rule)) {
+            return;
+        }
+        long started = stats != null ? System.nanoTime() : 0L;
+        int matches = 0;
+        CharSequence subject = guard != null ? guard.arm(input) : input;
+        Matcher matcher = matchers[slot] == null
+                ? matchers[slot] = rule.getPattern().matcher(subject)
+                : matchers[slot].reset(subject);
+        try {
+            while (matcher.find()) {
+                matches++;
+                listener.onMatch(rule, matcher.start(), matcher.end());
+            }
+        } catch (RuleTimeoutException ex) {
+            guard.timedOut(rule, ex);
+        }
+        if (stats != null) {
+            stats.record(rule.getIndex(), System.nanoTime() - started, matches);
+        }
+    }
+}
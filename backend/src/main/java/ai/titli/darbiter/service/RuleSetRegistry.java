@@ -0,0 +1,273 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.FindingCategory;
+import ai.titli.darbiter.model.RuleSet;
+import ai.titli.darbiter.model.RuleSetInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsed and compiled rulesets, keyed by file name. The bundled classpath
+ * rulesets are loaded once at startup; YAML files in {@code darbiter.rulesets.dir}
+ * are added on top (a file with a bundled name overrides it) and, when
+ * {@code darbiter.rulesets.watch} is on, reloaded as they change.
+ *
+ * <p>Each published {@link RuleSetSnapshot} is never modified: a reload builds a
+ * new one and swaps the whole map, so a scan that looked its ruleset up
+ * before the swap finishes on the version it started with. A file that fails to
+ * parse or compile leaves the previous version in place.
+ */
+@Component
+public class RuleSetRegistry {
+    static final String DEFAULT_RULESET = "pii_baseline.yaml";
+    private static final List<String> BUNDLED_FILES = List.of(
+            "combined_baseline.yaml",
+            "pii_baseline.yaml",
+            "secrets_baseline.yaml",
+            "config_risk_baseline.yaml"
+    );
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    private final CompiledRuleSetCache compiledRuleSetCache;
+    private final Path directory;
+    private final boolean watch;
+    private final Counter reloaded;
+    private final Counter rejected;
+    private final Map<String, RuleSetSnapshot> bundled = new LinkedHashMap<>();
+    private final Map<String, RuleSetSnapshot> external = new TreeMap<>();
+    private volatile Map<String, RuleSetSnapshot> snapshots = Map.of();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public RuleSetRegistry(CompiledRuleSetCache compiledRuleSetCache,
+                           MeterRegistry meterRegistry,
+                           @Value("${darbiter.rulesets.dir:}") String directory,
+                           @Value("${darbiter.rulesets.watch:true}") boolean watch) {
+        this.compiledRuleSetCache = compiledRuleSetCache;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        this.watch = watch;
+        this.reloaded = Counter.builder("darbiter.ruleset.reloads")
+                .description("External ruleset files loaded or reloaded")
+                .tag("result", "ok")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("darbiter.ruleset.reloads")
+                .description("External ruleset files loaded or reloaded")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        for (String file : BUNDLED_FILES) {
+            String resourcePath = "rulesets/" + file;
+            try (InputStream inputStream = new ClassPathResource(resourcePath).getInputStream()) {
+                bundled.put(file, compile(inputStream.readAllBytes()));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Unable to load ruleset: " + resourcePath, ex);
+            }
+        }
+        if (this.directory != null) {
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to open ruleset directory " + directory, ex);
+            }
+        }
+        rescan();
+    }
+
+    /**
+     * Current snapshot of {@code file}, or the default ruleset when blank. Callers
+     * should look the ruleset up once per scan and keep the returned instance.
+     */
+    public RuleSetSnapshot get(String file) {
+        String name = file == null || file.isBlank() ? DEFAULT_RULESET : file;
+        RuleSetSnapshot snapshot = snapshots.get(name);
+        if (snapshot == null) {
+            throw new IllegalStateException("Unable to load ruleset: " + name);
+        }
+        return snapshot;
+    }
+
+    public List<RuleSetInfo> list() {
+        List<RuleSetInfo> infos = new ArrayList<>();
+        for (Map.Entry<String, RuleSetSnapshot> entry : snapshots.entrySet()) {
+            RuleSet ruleSet = entry.getValue().ruleSet();
+            infos.add(new RuleSetInfo(entry.getKey(), ruleSet.getName(), ruleSet.getVersion()));
+        }
+        return infos;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (directory == null || !watch) {
+            return;
+        }
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to watch ruleset directory " + directory, ex);
+        }
+        watcher = new Thread(this::watchLoop, "darbiter-ruleset-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /** Re-reads every file in the external directory. */
+    synchronized void rescan() {
+        if (directory == null) {
+            publish();
+            return;
+        }
+        Set<String> present = new LinkedHashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (isRuleSetFile(file.getFileName().toString())) {
+                    present.add(file.getFileName().toString());
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to list ruleset directory " + directory, ex);
+        }
+        external.keySet().retainAll(present);
+        for (String name : present) {
+            loadExternal(name);
+        }
+        publish();
+    }
+
+    /** Reloads one external file, or drops it when it no longer exists. */
+    synchronized void reload(String name) {
+        if (directory == null || !isRuleSetFile(name)) {
+            return;
+        }
+        if (Files.isRegularFile(directory.resolve(name))) {
+            loadExternal(name);
+        } else {
+            external.remove(name);
+        }
+        publish();
+    }
+
+    private void loadExternal(String name) {
+        RuleSetSnapshot loaded;
+        try {
+            loaded = compile(Files.readAllBytes(directory.resolve(name)));
+        } catch (IOException | RuntimeException ex) {
+            rejected.increment();
+            return;
+        }
+        RuleSetSnapshot previous = external.get(name);
+        if (previous != null
+                && previous.ruleSet().getFingerprint().equals(loaded.ruleSet().getFingerprint())) {
+            return;
+        }
+        external.put(name, loaded);
+        reloaded.increment();
+    }
+
+    /**
+     * Parses a ruleset and compiles every rule up front, so a file with a bad
+     * regex is rejected at load time rather than failing a scan.
+     */
+    private RuleSetSnapshot compile(byte[] content) throws IOException {
+        RuleSet ruleSet = mapper.readValue(content, RuleSet.class);
+        if (ruleSet.getName() == null || ruleSet.getName().isBlank()) {
+            throw new IllegalStateException("Ruleset has no name");
+        }
+        ruleSet.setPatterns(List.copyOf(ruleSet.getPatterns()));
+        ruleSet.setFingerprint(fingerprint(content));
+        RuleSetSnapshot snapshot = new RuleSetSnapshot(ruleSet);
+        compiledRuleSetCache.get(snapshot, EnumSet.allOf(FindingCategory.class));
+        return snapshot;
+    }
+
+    private void publish() {
+        Map<String, RuleSetSnapshot> next = new LinkedHashMap<>(bundled);
+        next.putAll(external);
+        // Compiled forms live on each snapshot, so retired ones need no cleanup.
+        snapshots = Collections.unmodifiableMap(next);
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<String> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                // Editors emit several events per save; collect them before reloading.
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            changed.add(event.context().toString());
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (overflow) {
+                    rescan();
+                } else {
+                    changed.forEach(this::reload);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Shutting down.
+        }
+    }
+
+    private static boolean isRuleSetFile(String name) {
+        return name.endsWith(".yaml") || name.endsWith(".yml");
+    }
+
+    private static String fingerprint(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.RuleSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One published version of a ruleset together with its compiled forms. The
+ * registry never mutates a published ruleset, so an edit produces a new
+ * snapshot and never reuses the compiled form of the old text; a scan still
+ * running on a retired snapshot keeps its compiled forms until it finishes.
+ */
+public final class RuleSetSnapshot {
+    private final RuleSet ruleSet;
+    private final Map<CompiledRuleSetCache.Key, CompiledRuleSet> compiled = new ConcurrentHashMap<>();
+
+    RuleSetSnapshot(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public RuleSet ruleSet() {
+        return ruleSet;
+    }
+
+    Map<CompiledRuleSetCache.Key, CompiledRuleSet> compiled() {
+        return compiled;
+    }
+}
@@ -0,0 +1,29 @@
+package ai.titli.darbiter.service;
+
+/**
+ * Per-rule match time and hit counts for one scan call, indexed by
+ * {@link CompiledRule#getIndex()}. Accumulated without synchronization by a
+ * single thread and flushed to {@link ScanMetrics} once the call finishes.
+ */
+final class RuleStats {
+    private final long[] nanos;
+    private final long[] hits;
+
+    RuleStats(int ruleCount) {
+        this.nanos = new long[ruleCount];
+        this.hits = new long[ruleCount];
+    }
+
+    void record(int rule, long elapsedNanos, int matches) {
+        nanos[rule] += elapsedNanos;
+        hits[rule] += matches;
+    }
+
+    long nanos(int rule) {
+        return nanos[rule];
+    }
+
+    long hits(int rule) {
+        return hits[rule];
+    }
+}
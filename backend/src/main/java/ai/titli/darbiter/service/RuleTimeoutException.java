@@ -0,0 +1,11 @@
+package ai.titli.darbiter.service;
+
+/**
+ * Thrown out of {@link java.util.regex.Matcher#find()} by
+ * {@link GuardedCharSequence} when a rule exceeds its budget.
+ */
+final class RuleTimeoutException extends RuntimeException {
+    RuleTimeoutException(String message) {
+        super(message, null, false, false);
+    }
+}
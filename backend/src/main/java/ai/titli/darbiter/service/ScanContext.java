@@ -0,0 +1,177 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.ScanDiagnostic;
+import ai.titli.darbiter.model.ScanJob;
+import ai.titli.darbiter.model.ScanStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live, thread-safe state of one scan: its id, progress counters, the
+ * cooperative cancellation flag checked between files, diagnostics and the
+ * rules the execution guard has disabled.
+ */
+public final class ScanContext {
+    private static final int MAX_DIAGNOSTICS = 1_000;
+
+    private final String scanId;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicLong filesProcessed = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong findings = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final Queue<ScanDiagnostic> diagnostics = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger diagnosticCount = new AtomicInteger();
+    private final Set<String> incompleteSources = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicInteger> ruleTimeouts = new ConcurrentHashMap<>();
+    private final Set<String> disabledRules = ConcurrentHashMap.newKeySet();
+    private volatile ScanStatus status = ScanStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile int disabledRulesVersion;
+
+    public ScanContext() {
+        this(UUID.randomUUID().toString());
+    }
+
+    public ScanContext(String scanId) {
+        this.scanId = scanId;
+    }
+
+    public String getScanId() {
+        return scanId;
+    }
+
+    public ScanStatus getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt != null ? startedAt : submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void fileScanned(long bytes, int findingCount) {
+        filesProcessed.incrementAndGet();
+        bytesRead.addAndGet(bytes);
+        findings.addAndGet(findingCount);
+    }
+
+    public void fileReused(int findingCount) {
+        filesProcessed.incrementAndGet();
+        cacheHits.incrementAndGet();
+        findings.addAndGet(findingCount);
+    }
+
+    public long getFilesScanned() {
+        return filesProcessed.get() - cacheHits.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Scan cancelled: " + scanId);
+        }
+    }
+
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * Records a warning; only the first {@value #MAX_DIAGNOSTICS} are kept. Every
+     * kind means the source's findings may be incomplete, so its top-level file
+     * ({@code file!/entry} labels count against {@code file}) is remembered.
+     */
+    public void addDiagnostic(ScanDiagnostic diagnostic) {
+        if (diagnostic.getSource() != null) {
+            int entry = diagnostic.getSource().indexOf("!/");
+            incompleteSources.add(entry < 0 ? diagnostic.getSource() : diagnostic.getSource().substring(0, entry));
+        }
+        if (diagnosticCount.incrementAndGet() <= MAX_DIAGNOSTICS) {
+            diagnostics.add(diagnostic);
+        }
+    }
+
+    /**
+     * Whether {@code source} was scanned without any diagnostic and with every
+     * rule enabled, so its findings are complete enough to reuse.
+     */
+    boolean isComplete(String source) {
+        return disabledRulesVersion == 0 && !incompleteSources.contains(source);
+    }
+
+    public List<ScanDiagnostic> getDiagnostics() {
+        return new ArrayList<>(diagnostics);
+    }
+
+    int ruleTimedOut(String ruleId) {
+        return ruleTimeouts.computeIfAbsent(ruleId, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /** Returns true if the rule was not disabled before. */
+    synchronized boolean disableRule(String ruleId) {
+        if (!disabledRules.add(ruleId)) {
+            return false;
+        }
+        disabledRulesVersion++;
+        return true;
+    }
+
+    boolean isRuleDisabled(String ruleId) {
+        return disabledRules.contains(ruleId);
+    }
+
+    int getDisabledRulesVersion() {
+        return disabledRulesVersion;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = ScanStatus.RUNNING;
+    }
+
+    void markFinished(ScanStatus finalStatus, String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    public boolean isFinished() {
+        return status == ScanStatus.DONE || status == ScanStatus.FAILED || status == ScanStatus.CANCELLED;
+    }
+
+    public ScanJob toJob() {
+        ScanJob job = new ScanJob();
+        job.setScanId(scanId);
+        job.setStatus(status);
+        job.setSubmittedAt(submittedAt);
+        job.setStartedAt(startedAt);
+        job.setFinishedAt(finishedAt);
+        job.setFilesProcessed(filesProcessed.get());
+        job.setBytesRead(bytesRead.get());
+        job.setFindings(findings.get());
+        job.setCacheHits(cacheHits.get());
+        job.setError(error);
+        return job;
+    }
+}
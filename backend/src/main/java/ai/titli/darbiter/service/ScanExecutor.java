@@ -0,0 +1,100 @@
+package ai.titli.darbiter.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Shared work-stealing pool for per-file scan work. Each call limits its own
+ * concurrency to the requested parallelism and buffers at most
+ * {@code maxInFlight} unmerged results, so a huge tree never queues every file
+ * at once. Results are handed to the sink in input order.
+ */
+@Component
+public class ScanExecutor {
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final int defaultParallelism;
+
+    public ScanExecutor(@Value("${darbiter.scan.pool-size:0}") int poolSize,
+                        @Value("${darbiter.scan.max-in-flight:256}") int maxInFlight,
+                        @Value("${darbiter.scan.default-parallelism:1}") int defaultParallelism) {
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(size);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.defaultParallelism = Math.max(1, defaultParallelism);
+    }
+
+    public int resolveParallelism(Integer requested) {
+        int parallelism = requested == null || requested <= 0 ? defaultParallelism : requested;
+        return Math.min(parallelism, pool.getParallelism());
+    }
+
+    public <T, R> void forEachOrdered(Iterator<T> items, int parallelism,
+                                      Function<T, R> task, Consumer<R> sink) {
+        if (parallelism <= 1) {
+            while (items.hasNext()) {
+                sink.accept(task.apply(items.next()));
+            }
+            return;
+        }
+        Semaphore running = new Semaphore(parallelism);
+        int window = Math.max(parallelism, maxInFlight);
+        Deque<Future<R>> inFlight = new ArrayDeque<>();
+        try {
+            while (items.hasNext()) {
+                T item = items.next();
+                if (inFlight.size() >= window) {
+                    sink.accept(await(inFlight.removeFirst()));
+                }
+                running.acquire();
+                inFlight.addLast(pool.submit(() -> {
+                    try {
+                        return task.apply(item);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+            while (!inFlight.isEmpty()) {
+                sink.accept(await(inFlight.removeFirst()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Scan interrupted");
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <R> R await(Future<R> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.PathScanRequest;
+import ai.titli.darbiter.model.ScanJob;
+import ai.titli.darbiter.model.ScanStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs path scans in the background. Submissions beyond the worker count wait
+ * in a bounded queue; once that is full, {@link #submit} rejects with
+ * {@link RejectedExecutionException} instead of piling up work.
+ */
+@Service
+public class ScanJobService {
+    private final ScanService scanService;
+    private final ScanStore scanStore;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<String, Future<?>> pending = new ConcurrentHashMap<>();
+
+    public ScanJobService(ScanService scanService,
+                          ScanStore scanStore,
+                          @Value("${darbiter.jobs.workers:2}") int workers,
+                          @Value("${darbiter.jobs.queue-capacity:16}") int queueCapacity,
+                          @Value("${darbiter.jobs.retention:PT1H}") Duration retention) {
+        this.scanService = scanService;
+        this.scanStore = scanStore;
+        this.retention = retention;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "darbiter-scan-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public ScanJob submit(PathScanRequest request) {
+        scanStore.pruneJobs(Instant.now().minus(retention));
+        ScanContext context = new ScanContext();
+        Future<?> future = executor.submit(() -> run(request, context));
+        pending.put(context.getScanId(), future);
+        if (context.isFinished()) {
+            pending.remove(context.getScanId());
+        }
+        scanStore.trackJob(context);
+        return context.toJob();
+    }
+
+    public Optional<ScanJob> status(String scanId) {
+        return scanStore.findJob(scanId).map(ScanContext::toJob);
+    }
+
+    public Optional<ScanJob> cancel(String scanId) {
+        Optional<ScanContext> job = scanStore.findJob(scanId);
+        job.ifPresent(context -> {
+            context.requestCancel();
+            Future<?> future = pending.get(scanId);
+            if (context.getStatus() == ScanStatus.QUEUED && future != null && future.cancel(false)) {
+                pending.remove(scanId);
+                context.markFinished(ScanStatus.CANCELLED, null);
+            }
+        });
+        return job.map(ScanContext::toJob);
+    }
+
+    private void run(PathScanRequest request, ScanContext context) {
+        try {
+            context.checkCancelled();
+            context.markRunning();
+            scanService.scanPath(request, context);
+            context.markFinished(ScanStatus.DONE, null);
+        } catch (CancellationException ex) {
+            context.markFinished(ScanStatus.CANCELLED, null);
+        } catch (RuntimeException ex) {
+            context.markFinished(ScanStatus.FAILED, ex.getMessage());
+        } catch (Error ex) {
+            // Still fail the job so pollers stop waiting; the future keeps the error.
+            context.markFinished(ScanStatus.FAILED, ex.toString());
+            throw ex;
+        } finally {
+            pending.remove(context.getScanId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,129 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.FindingCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the scan pipeline. Extension tags are limited to the
+ * formats the extractors understand so arbitrary file names cannot blow up tag
+ * cardinality; rule tags use the rule id.
+ */
+@Component
+public class ScanMetrics {
+    private static final Set<String> KNOWN_EXTENSIONS = Set.of(
+            "json", "yaml", "yml", "toml", "csv", "xlsx", "xml", "properties", "env", "conf",
+            "pdf", "docx", "txt", "log");
+
+    private final MeterRegistry registry;
+    private final boolean ruleTiming;
+    private final Counter bytesScanned;
+    private final Counter linesScanned;
+
+    public ScanMetrics(MeterRegistry registry,
+                       @Value("${darbiter.metrics.rule-timing:true}") boolean ruleTiming) {
+        this.registry = registry;
+        this.ruleTiming = ruleTiming;
+        this.bytesScanned = Counter.builder("darbiter.scan.bytes")
+                .description("Bytes of file content scanned")
+                .baseUnit("bytes")
+                .register(registry);
+        this.linesScanned = Counter.builder("darbiter.scan.lines")
+                .description("Lines and structured fields passed to the match engine")
+                .register(registry);
+    }
+
+    /**
+     * Returns a per-call accumulator for rule timings, or {@code null} when
+     * per-rule timing is disabled.
+     */
+    RuleStats newRuleStats(int ruleCount) {
+        return ruleTiming ? new RuleStats(ruleCount) : null;
+    }
+
+    void recordRules(List<CompiledRule> rules, RuleStats stats) {
+        if (stats == null) {
+            return;
+        }
+        for (CompiledRule rule : rules) {
+            long nanos = stats.nanos(rule.getIndex());
+            if (nanos == 0) {
+                continue;
+            }
+            String ruleId = rule.getRule().getId();
+            Timer.builder("darbiter.rule.match")
+                    .description("Time spent running a rule's regex")
+                    .tag("rule", ruleId)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            long hits = stats.hits(rule.getIndex());
+            if (hits > 0) {
+                Counter.builder("darbiter.rule.hits")
+                        .description("Matches reported by a rule")
+                        .tag("rule", ruleId)
+                        .register(registry)
+                        .increment(hits);
+            }
+        }
+    }
+
+    void ruleTimedOut(String ruleId) {
+        Counter.builder("darbiter.rule.timeouts")
+                .description("Rule runs aborted by the execution guard")
+                .tag("rule", ruleId)
+                .register(registry)
+                .increment();
+    }
+
+    void linesScanned(long lines) {
+        linesScanned.increment(lines);
+    }
+
+    void bytesScanned(long bytes) {
+        bytesScanned.increment(bytes);
+    }
+
+    void fileSkipped(String reason) {
+        Counter.builder("darbiter.scan.files.skipped")
+                .description("Files skipped as binary or unreadable, or cut off at the per-file byte budget")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    void extractionCompleted(String extension, String kind, long elapsedNanos) {
+        Timer.builder("darbiter.extraction")
+                .description("Content extraction latency")
+                .tag("extension", KNOWN_EXTENSIONS.contains(extension) ? extension : "other")
+                .tag("kind", kind)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void scanCompleted(String type, Duration elapsed, RiskTally tally) {
+        Timer.builder("darbiter.scan")
+                .description("End-to-end scan latency")
+                .tag("type", type)
+                .register(registry)
+                .record(elapsed);
+        for (FindingCategory category : FindingCategory.values()) {
+            long count = tally.count(category);
+            if (count > 0) {
+                Counter.builder("darbiter.scan.findings")
+                        .description("Findings reported, by category")
+                        .tag("category", category.name().toLowerCase(Locale.ROOT))
+                        .register(registry)
+                        .increment(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ai.titli.darbiter.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only segment files holding serialized scan results. Each record is
+ * {@code magic, id length, id, flags, payload length, payload}; the flags keep
+ * what callers must know without decoding the payload. The id to location
+ * index lives in memory and is rebuilt from the segments on startup; once more
+ * than {@code maxSegments} segments exist the oldest is deleted. Methods
+ * synchronize on the log, so callers can write outside their own locks.
+ */
+final class ScanSegmentLog {
+    private static final int MAGIC = 0xDA5C0002;
+    private static final int FINDINGS_STREAMED = 0x01;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final TreeMap<Integer, Path> segments = new TreeMap<>();
+    private final Map<String, Location> locations = new HashMap<>();
+    private FileChannel active;
+    private int activeId;
+
+    ScanSegmentLog(Path directory, long segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).forEach(file -> {
+                String name = file.getFileName().toString();
+                segments.put(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+            });
+        }
+        long validBytes = 0;
+        for (Map.Entry<Integer, Path> segment : segments.entrySet()) {
+            validBytes = rebuild(segment.getKey(), segment.getValue());
+        }
+        activeId = segments.isEmpty() ? 1 : segments.lastKey();
+        openActive();
+        if (active.size() > validBytes) {
+            // Drop a torn tail so new records are not appended behind it.
+            active.truncate(validBytes);
+        }
+    }
+
+    synchronized boolean contains(String id) {
+        return locations.containsKey(id);
+    }
+
+    /** Whether the record for {@code id} was appended with {@code findingsStreamed} set. */
+    synchronized boolean isFindingsStreamed(String id) {
+        Location location = locations.get(id);
+        return location != null && (location.flags & FINDINGS_STREAMED) != 0;
+    }
+
+    synchronized void append(String id, byte[] payload, boolean findingsStreamed) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int flags = findingsStreamed ? FINDINGS_STREAMED : 0;
+        ByteBuffer record = ByteBuffer.allocate(4 + 2 + idBytes.length + 1 + 4 + payload.length);
+        record.putInt(MAGIC).putShort((short) idBytes.length).put(idBytes).put((byte) flags)
+                .putInt(payload.length).put(payload);
+        record.flip();
+        if (active.size() > 0 && active.size() + record.remaining() > segmentBytes) {
+            roll();
+        }
+        long offset = active.size() + 4 + 2 + idBytes.length + 1 + 4;
+        while (record.hasRemaining()) {
+            active.write(record);
+        }
+        locations.put(id, new Location(activeId, offset, payload.length, flags));
+    }
+
+    synchronized byte[] read(String id) throws IOException {
+        Location location = locations.get(id);
+        if (location == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(segments.get(location.segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            long position = location.offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Truncated scan record: " + id);
+                }
+                position += read;
+            }
+            return buffer.array();
+        }
+    }
+
+    synchronized int size() {
+        return locations.size();
+    }
+
+    synchronized void close() throws IOException {
+        active.close();
+    }
+
+    private void roll() throws IOException {
+        active.close();
+        activeId++;
+        openActive();
+        while (segments.size() > maxSegments) {
+            Map.Entry<Integer, Path> oldest = segments.pollFirstEntry();
+            int segmentId = oldest.getKey();
+            locations.values().removeIf(location -> location.segment == segmentId);
+            Files.deleteIfExists(oldest.getValue());
+        }
+    }
+
+    private void openActive() throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", PREFIX, activeId, SUFFIX));
+        segments.put(activeId, file);
+        active = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /** Indexes the segment's records and returns the offset just past the last complete one. */
+    private long rebuild(int segmentId, Path file) throws IOException {
+        long offset = 0;
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            while (data.readInt() == MAGIC) {
+                byte[] idBytes = new byte[data.readUnsignedShort()];
+                data.readFully(idBytes);
+                int flags = data.readUnsignedByte();
+                int length = data.readInt();
+                if (length < 0) {
+                    break;
+                }
+                long payloadOffset = offset + 4 + 2 + idBytes.length + 1 + 4;
+                data.skipNBytes(length);
+                locations.put(new String(idBytes, StandardCharsets.UTF_8),
+                        new Location(segmentId, payloadOffset, length, flags));
+                offset = payloadOffset + length;
+            }
+        } catch (EOFException ex) {
+            // A torn record at the tail of the last segment is ignored.
+        }
+        return offset;
+    }
+
+    private static final class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final int flags;
+
+        private Location(int segment, long offset, int length, int flags) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.flags = flags;
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package ai.titli.darbiter.service;
 
 import ai.titli.darbiter.model.AIUsage;
+import ai.titli.darbiter.model.DiagnosticKind;
 import ai.titli.darbiter.model.EligibilityDecision;
 import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingCategory;
 import ai.titli.darbiter.model.PathScanRequest;
-import ai.titli.darbiter.model.RuleSet;
+import ai.titli.darbiter.model.ScanDiagnostic;
 import ai.titli.darbiter.model.ScanResult;
 import ai.titli.darbiter.model.TextScanRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Service
@@ -28,6 +36,15 @@ public class ScanService {
     private final RemediationService remediationService;
     private final FileContentExtractor fileContentExtractor;
     private final ScanStore scanStore;
+    private final ScanExecutor scanExecutor;
+    private final TextFileReaderFactory textFileReaderFactory;
+    private final IncrementalScanIndex incrementalScanIndex;
+    private final ScanMetrics scanMetrics;
+    private final int maxBufferBytes;
+    private final int uploadParallelism;
+    private final int maxArchiveDepth;
+    private final int maxArchiveEntries;
+    private final long maxArchiveBytes;
 
     public ScanService(RuleSetLoader ruleSetLoader,
                        DetectionService detectionService,
@@ -35,7 +52,16 @@ public class ScanService {
                        EligibilityEvaluator eligibilityEvaluator,
                        RemediationService remediationService,
                        FileContentExtractor fileContentExtractor,
-                       ScanStore scanStore) {
+                       ScanStore scanStore,
+                       ScanExecutor scanExecutor,
+                       TextFileReaderFactory textFileReaderFactory,
+                       IncrementalScanIndex incrementalScanIndex,
+                       ScanMetrics scanMetrics,
+                       @Value("${darbiter.upload.max-buffer-bytes:20971520}") int maxBufferBytes,
+                       @Value("${darbiter.upload.parallelism:4}") int uploadParallelism,
+                       @Value("${darbiter.archive.max-depth:3}") int maxArchiveDepth,
+                       @Value("${darbiter.archive.max-entries:10000}") int maxArchiveEntries,
+                       @Value("${darbiter.archive.max-bytes:1073741824}") long maxArchiveBytes) {
         this.ruleSetLoader = ruleSetLoader;
         this.detectionService = detectionService;
         this.riskClassifier = riskClassifier;
@@ -43,100 +69,325 @@ public class ScanService {
         this.remediationService = remediationService;
         this.fileContentExtractor = fileContentExtractor;
         this.scanStore = scanStore;
+        this.scanExecutor = scanExecutor;
+        this.textFileReaderFactory = textFileReaderFactory;
+        this.incrementalScanIndex = incrementalScanIndex;
+        this.scanMetrics = scanMetrics;
+        this.maxBufferBytes = maxBufferBytes;
+        this.uploadParallelism = uploadParallelism;
+        this.maxArchiveDepth = maxArchiveDepth;
+        this.maxArchiveEntries = maxArchiveEntries;
+        this.maxArchiveBytes = maxArchiveBytes;
     }
 
     public ScanResult scanPath(PathScanRequest request) {
-        RuleSet ruleSet = ruleSetLoader.load(request.getRuleset());
+        return scanPath(request, new ScanContext());
+    }
+
+    public ScanResult scanPath(PathScanRequest request, ScanContext context) {
         List<Finding> findings = new ArrayList<>();
+        return scanPath(request, context, findings, findings::addAll);
+    }
+
+    /**
+     * Runs a path scan that hands each file's findings to {@code sink} as soon
+     * as they are available, in walk order, instead of collecting them. Only
+     * the running {@link RiskTally} is kept, so the returned (and stored)
+     * result carries the summary and decision but no finding list and is
+     * marked {@link ScanResult#isFindingsStreamed() streamed}.
+     */
+    public ScanResult streamPath(PathScanRequest request, ScanContext context, Consumer<List<Finding>> sink) {
+        return scanPath(request, context, null, sink);
+    }
+
+    /** {@code findings} is {@code null} when they only go to {@code sink}. */
+    private ScanResult scanPath(PathScanRequest request, ScanContext context, List<Finding> findings,
+                                Consumer<List<Finding>> sink) {
+        RuleSetSnapshot ruleSet = ruleSetLoader.load(request.getRuleset());
+        long byteBudget = textFileReaderFactory.resolveByteBudget(request.getMaxBytesPerFile());
+        RiskTally tally = new RiskTally();
+        RemediationGroups remediation = new RemediationGroups();
+        Consumer<List<Finding>> tallied = fileFindings -> {
+            tally.addAll(fileFindings);
+            remediation.addAll(fileFindings);
+            sink.accept(fileFindings);
+        };
         Path root = Path.of(request.getPath());
+        IncrementalScanIndex.Session index = request.isIncremental()
+                ? incrementalScanIndex.open(root, ruleSet.ruleSet(), request.getCategories(), byteBudget)
+                : null;
         if (Files.isDirectory(root)) {
             try (Stream<Path> paths = request.isRecursive() ? Files.walk(root) : Files.list(root)) {
-                paths.filter(Files::isRegularFile)
-                        .forEach(file -> {
-                            List<ai.titli.darbiter.model.StructuredField> fields =
-                                    fileContentExtractor.extractStructured(file);
-                            if (fields != null && !fields.isEmpty()) {
-                                findings.addAll(detectionService.detectStructured(
-                                        fields, ruleSet, request.getCategories(), file.toString()));
-                            } else {
-                                String content = fileContentExtractor.extract(file);
-                                findings.addAll(detectionService.detectText(
-                                        content, ruleSet, request.getCategories(), file.toString()));
-                            }
-                        });
+                Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+                scanExecutor.forEachOrdered(files, scanExecutor.resolveParallelism(request.getParallelism()),
+                        file -> scanFile(file, ruleSet, request.getCategories(), byteBudget, context, index),
+                        tallied);
             } catch (IOException ex) {
                 throw new IllegalStateException("Failed to scan directory: " + root, ex);
             }
         } else if (Files.isRegularFile(root)) {
-            List<ai.titli.darbiter.model.StructuredField> fields =
-                    fileContentExtractor.extractStructured(root);
-            if (fields != null && !fields.isEmpty()) {
-                findings.addAll(detectionService.detectStructured(
-                        fields, ruleSet, request.getCategories(), root.toString()));
-            } else {
-                String content = fileContentExtractor.extract(root);
-                findings.addAll(detectionService.detectText(
-                        content, ruleSet, request.getCategories(), root.toString()));
-            }
+            tallied.accept(scanFile(root, ruleSet, request.getCategories(), byteBudget, context, index));
         }
-        return buildResult(ruleSet, findings, request.isApprovedForAi(), request.getUsage());
+        if (index != null) {
+            index.save();
+        }
+        return buildResult("path", context, ruleSet, findings, tally, remediation, request.isApprovedForAi(),
+                request.getUsage(), request.isPerFindingRemediation() && findings != null);
     }
 
     public ScanResult scanFiles(List<MultipartFile> files, boolean approvedForAi, String ruleset,
                                 java.util.Set<ai.titli.darbiter.model.FindingCategory> categories,
-                                AIUsage usage) {
-        RuleSet ruleSet = ruleSetLoader.load(ruleset);
+                                AIUsage usage, boolean perFindingRemediation) {
+        RuleSetSnapshot ruleSet = ruleSetLoader.load(ruleset);
+        ScanContext context = new ScanContext();
         List<Finding> findings = new ArrayList<>();
-        for (MultipartFile file : files) {
-            if (file.isEmpty()) {
-                continue;
+        long byteBudget = textFileReaderFactory.resolveByteBudget(null);
+        Iterator<MultipartFile> uploads = files.stream().filter(file -> !file.isEmpty()).iterator();
+        scanExecutor.forEachOrdered(uploads, scanExecutor.resolveParallelism(uploadParallelism),
+                file -> scanUpload(file, ruleSet, categories, byteBudget, context),
+                findings::addAll);
+        return buildResult("files", context, ruleSet, findings, approvedForAi, usage, perFindingRemediation);
+    }
+
+    /**
+     * Scans one upload straight from its multipart stream, reading it once.
+     * Line-oriented text is decoded as it streams; structured and document
+     * formats need the whole content, so they are buffered in memory (up to
+     * {@code darbiter.upload.max-buffer-bytes}). Binaries are skipped from their
+     * header block. A file that cannot be read or
+     * parsed is reported as a {@link DiagnosticKind#FILE_ERROR} diagnostic and
+     * contributes no findings, so the rest of the batch still completes.
+     */
+    private List<Finding> scanUpload(MultipartFile file, RuleSetSnapshot ruleSet, Set<FindingCategory> categories,
+                                     long byteBudget, ScanContext context) {
+        String filename = file.getOriginalFilename();
+        context.checkCancelled();
+        try (InputStream inputStream = file.getInputStream()) {
+            ContentSource source = fileContentExtractor.load(filename, inputStream, maxBufferBytes);
+            if (skipBinary(source)) {
+                return List.of();
             }
-            try {
-                Path tempFile = Files.createTempFile("darbiter-upload-", "-" + file.getOriginalFilename());
-                file.transferTo(tempFile);
-                List<ai.titli.darbiter.model.StructuredField> fields =
-                        fileContentExtractor.extractStructured(tempFile);
-                if (fields != null && !fields.isEmpty()) {
-                    findings.addAll(detectionService.detectStructured(
-                            fields, ruleSet, categories, file.getOriginalFilename()));
-                } else {
-                    String content = fileContentExtractor.extract(tempFile);
-                    findings.addAll(detectionService.detectText(
-                            content, ruleSet, categories, file.getOriginalFilename()));
-                }
-                Files.deleteIfExists(tempFile);
-            } catch (IOException ex) {
-                throw new IllegalStateException("Failed to scan upload: " + file.getOriginalFilename(), ex);
+            if (source.isTruncated()) {
+                scanMetrics.fileSkipped("size_cap");
+            }
+            return scanSource(source, filename, ruleSet, categories, byteBudget, context);
+        } catch (IOException | RuntimeException ex) {
+            if (ex instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            fileFailed(filename, ex, context);
+            return List.of();
+        }
+    }
+
+    /**
+     * Runs detection over a single extraction of {@code source}, or over each
+     * entry of an archive. A structured parse that failed and fell back to text
+     * is reported as an {@link DiagnosticKind#EXTRACTION_ERROR}; a source with
+     * nothing readable as a {@link DiagnosticKind#FILE_ERROR}.
+     */
+    private List<Finding> scanSource(ContentSource source, String label, RuleSetSnapshot ruleSet,
+                                     Set<FindingCategory> categories, long byteBudget, ScanContext context)
+            throws IOException {
+        if (source.getFormat() == ContentFormat.ARCHIVE) {
+            return scanArchive(source, label, ruleSet, categories, byteBudget, context);
+        }
+        try (Extraction extraction = fileContentExtractor.extractFrom(source, byteBudget)) {
+            if (extraction.isFailed()) {
+                fileFailed(label, extraction.getError(), context);
+                return List.of();
             }
+            if (extraction.getError() != null) {
+                context.addDiagnostic(new ScanDiagnostic(DiagnosticKind.EXTRACTION_ERROR, label, null,
+                        "Not parsed as " + extraction.getFormat() + ", scanned as text: "
+                                + rootMessage(extraction.getError())));
+            }
+            if (extraction.getFields() != null) {
+                return detectionService.detectStructured(extraction.getFields(), ruleSet, categories, label, context);
+            }
+            return detectionService.detectStream(extraction.getText(), ruleSet, categories, label, context);
+        }
+    }
+
+    /**
+     * Streams the archive's entries (see {@link ArchiveWalker}) through the same
+     * sniff, extract and detect steps as files, labelled
+     * {@code archive!/inner/path}. Limits that are hit become
+     * {@link DiagnosticKind#ARCHIVE_LIMIT} diagnostics. A damaged archive keeps
+     * the findings from the entries before the damage.
+     */
+    private List<Finding> scanArchive(ContentSource source, String label, RuleSetSnapshot ruleSet,
+                                      Set<FindingCategory> categories, long byteBudget, ScanContext context) {
+        List<Finding> findings = new ArrayList<>();
+        ArchiveWalker walker = new ArchiveWalker(maxArchiveDepth, maxArchiveEntries, maxArchiveBytes,
+                new ArchiveWalker.EntryHandler() {
+                    @Override
+                    public void onEntry(String entryLabel, InputStream content) throws IOException {
+                        context.checkCancelled();
+                        ContentSource entry = fileContentExtractor.load(entryLabel, content, maxBufferBytes);
+                        if (skipBinary(entry)) {
+                            return;
+                        }
+                        if (entry.isTruncated()) {
+                            scanMetrics.fileSkipped("size_cap");
+                        }
+                        findings.addAll(scanSource(entry, entryLabel, ruleSet, categories, byteBudget, context));
+                    }
+
+                    @Override
+                    public void onLimit(String entryLabel, String message) {
+                        context.addDiagnostic(new ScanDiagnostic(DiagnosticKind.ARCHIVE_LIMIT, entryLabel, null,
+                                message));
+                    }
+                });
+        try (InputStream inputStream = source.open()) {
+            walker.walk(label, inputStream);
+        } catch (IOException | RuntimeException ex) {
+            if (ex instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            fileFailed(label, ex, context);
+        }
+        return findings;
+    }
+
+    /** Binaries found by sniffing count as skipped, not as errors. */
+    private boolean skipBinary(ContentSource source) {
+        if (source.getFormat() != ContentFormat.BINARY) {
+            return false;
+        }
+        scanMetrics.fileSkipped("binary");
+        return true;
+    }
+
+    private void fileFailed(String label, Exception ex, ScanContext context) {
+        scanMetrics.fileSkipped("error");
+        context.addDiagnostic(new ScanDiagnostic(DiagnosticKind.FILE_ERROR, label, null,
+                "Failed to extract content: " + rootMessage(ex)));
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable cause = ex;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
         }
-        return buildResult(ruleSet, findings, approvedForAi, usage);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
     }
 
     public ScanResult scanText(TextScanRequest request) {
-        RuleSet ruleSet = ruleSetLoader.load(request.getRuleset());
+        RuleSetSnapshot ruleSet = ruleSetLoader.load(request.getRuleset());
+        ScanContext context = new ScanContext();
         List<Finding> findings = detectionService.detectText(
                 request.getContent(),
                 ruleSet,
                 request.getCategories(),
-                "stdin"
+                "stdin",
+                context
         );
-        return buildResult(ruleSet, findings, request.isApprovedForAi(), request.getUsage());
+        return buildResult("text", context, ruleSet, findings, request.isApprovedForAi(), request.getUsage(),
+                request.isPerFindingRemediation());
+    }
+
+    private List<Finding> scanFile(Path file, RuleSetSnapshot ruleSet, Set<FindingCategory> categories,
+                                   long byteBudget, ScanContext context, IncrementalScanIndex.Session index) {
+        if (index == null) {
+            return scanFile(file, ruleSet, categories, byteBudget, context);
+        }
+        IncrementalScanIndex.FileCheck check;
+        try {
+            check = index.check(file);
+        } catch (IOException ex) {
+            fileFailed(file.toString(), ex, context);
+            return List.of();
+        }
+        if (check.isUnchanged()) {
+            context.checkCancelled();
+            context.fileReused(check.getCachedFindings().size());
+            return check.getCachedFindings();
+        }
+        List<Finding> findings = scanFile(file, ruleSet, categories, byteBudget, context);
+        // Failed or partial results must not be reused as a clean scan.
+        if (!context.isComplete(file.toString())) {
+            index.forget(check);
+            return findings;
+        }
+        try {
+            index.record(file, check, findings);
+        } catch (IOException ex) {
+            // Gone or unreadable since the scan; the findings stand but are not indexed.
+            index.forget(check);
+        }
+        return findings;
+    }
+
+    private List<Finding> scanFile(Path file, RuleSetSnapshot ruleSet, Set<FindingCategory> categories,
+                                   long byteBudget, ScanContext context) {
+        context.checkCancelled();
+        List<Finding> findings;
+        boolean truncated = false;
+        try {
+            ContentSource source = fileContentExtractor.load(file, maxBufferBytes);
+            if (skipBinary(source)) {
+                return List.of();
+            }
+            truncated = source.isTruncated();
+            findings = scanSource(source, file.toString(), ruleSet, categories, byteBudget, context);
+        } catch (IOException | RuntimeException ex) {
+            if (ex instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            fileFailed(file.toString(), ex, context);
+            findings = List.of();
+        }
+        long size = sizeOf(file);
+        long scanned = byteBudget > 0 ? Math.min(size, byteBudget) : size;
+        if (scanned < size || truncated) {
+            scanMetrics.fileSkipped("size_cap");
+        }
+        scanMetrics.bytesScanned(scanned);
+        context.fileScanned(scanned, findings.size());
+        return findings;
     }
 
-    private ScanResult buildResult(RuleSet ruleSet, List<Finding> findings,
-                                   boolean approvedForAi, AIUsage usage) {
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0L;
+        }
+    }
+
+    private ScanResult buildResult(String type, ScanContext context, RuleSetSnapshot ruleSet, List<Finding> findings,
+                                   boolean approvedForAi, AIUsage usage, boolean perFindingRemediation) {
+        RemediationGroups remediation = new RemediationGroups();
+        remediation.addAll(findings);
+        return buildResult(type, context, ruleSet, findings, RiskTally.of(findings), remediation, approvedForAi,
+                usage, perFindingRemediation);
+    }
+
+    private ScanResult buildResult(String type, ScanContext context, RuleSetSnapshot ruleSet, List<Finding> findings,
+                                   RiskTally tally, RemediationGroups remediation, boolean approvedForAi,
+                                   AIUsage usage, boolean perFindingRemediation) {
         ScanResult result = new ScanResult();
-        result.setScanId(UUID.randomUUID().toString());
-        result.setRuleset(ruleSet.getName() + " (" + ruleSet.getVersion() + ")");
+        result.setScanId(context.getScanId());
+        result.setRuleset(ruleSet.ruleSet().getName() + " (" + ruleSet.ruleSet().getVersion() + ")");
         result.setUsage(usage);
-        result.setStartedAt(Instant.now());
+        result.setStartedAt(context.getStartedAt());
         result.setFinishedAt(Instant.now());
         result.setFindings(findings);
-        result.setRiskSummary(riskClassifier.summarize(findings));
-        EligibilityDecision decision = eligibilityEvaluator.evaluate(findings, approvedForAi);
+        result.setFindingsStreamed(findings == null);
+        result.setRiskSummary(riskClassifier.summarize(tally));
+        EligibilityDecision decision = eligibilityEvaluator.evaluate(tally, approvedForAi);
         result.setDecision(decision);
         result.setEligibility(decision.getStatus());
-        result.setRemediation(remediationService.recommend(findings));
+        result.setRemediationGroups(remediation.toList());
+        if (perFindingRemediation) {
+            result.setRemediation(remediationService.recommend(findings));
+        }
+        result.setFilesScanned(context.getFilesScanned());
+        result.setCacheHits(context.getCacheHits());
+        result.setDiagnostics(context.getDiagnostics());
+        scanMetrics.scanCompleted(type, Duration.between(context.getStartedAt(), result.getFinishedAt()), tally);
         scanStore.save(result);
         return result;
     }
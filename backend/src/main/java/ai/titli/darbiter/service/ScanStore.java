@@ -1,21 +1,432 @@
 package ai.titli.darbiter.service;
 
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.FindingFilter;
+import ai.titli.darbiter.model.FindingPage;
 import ai.titli.darbiter.model.ScanResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Scan results in two tiers: a bounded in-memory LRU tier and, when
+ * {@code darbiter.store.dir} is set, gzipped JSON records in append-only
+ * segment files. Results leaving the memory tier (too many entries, too many
+ * findings held or idle longer than {@code max-age}) are spilled to disk and
+ * loaded back on demand by {@link #find(String)}. Idle results are also swept
+ * every {@code sweep-interval}, so {@code max-age} holds when no scans arrive.
+ */
 @Component
 public class ScanStore {
-    private final Map<String, ScanResult> store = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long maxFindings;
+    private final Duration maxAge;
+    private final Duration sweepInterval;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Entry>> loads = new HashMap<>();
+    private final Map<String, ScanContext> jobs = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ScanSegmentLog spill;
+    private long heldFindings;
+    private ScheduledExecutorService sweeper;
+
+    public ScanStore(MeterRegistry meterRegistry,
+                     @Value("${darbiter.store.max-entries:64}") int maxEntries,
+                     @Value("${darbiter.store.max-findings:500000}") long maxFindings,
+                     @Value("${darbiter.store.max-age:PT30M}") Duration maxAge,
+                     @Value("${darbiter.store.sweep-interval:PT1M}") Duration sweepInterval,
+                     @Value("${darbiter.store.dir:${user.home}/.darbiter/scans}") String directory,
+                     @Value("${darbiter.store.segment-bytes:67108864}") long segmentBytes,
+                     @Value("${darbiter.store.max-segments:16}") int maxSegments) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxFindings = maxFindings;
+        this.maxAge = maxAge;
+        this.sweepInterval = sweepInterval;
+        if (directory == null || directory.isBlank()) {
+            this.spill = null;
+        } else {
+            try {
+                this.spill = new ScanSegmentLog(Path.of(directory), segmentBytes, maxSegments);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to open scan store at " + directory, ex);
+            }
+        }
+        Gauge.builder("darbiter.scan.store.size", this, ScanStore::size)
+                .description("Scan results held in memory")
+                .register(meterRegistry);
+        Gauge.builder("darbiter.scan.store.spilled", this, ScanStore::spilledCount)
+                .description("Scan results held in the on-disk spill log")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (sweepInterval.isZero() || sweepInterval.isNegative()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "darbiter-scan-store-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = sweepInterval.toMillis();
+        sweeper.scheduleWithFixedDelay(this::sweep, millis, millis, TimeUnit.MILLISECONDS);
+    }
 
     public void save(ScanResult result) {
-        store.put(result.getScanId(), result);
+        // Index outside the lock; it is the expensive part for large scans.
+        Entry entry = new Entry(result);
+        synchronized (this) {
+            Entry previous = memory.put(result.getScanId(), entry);
+            if (previous != null) {
+                heldFindings -= previous.findings;
+            }
+            heldFindings += entry.findings;
+        }
+        evict();
     }
 
     public Optional<ScanResult> find(String scanId) {
-        return Optional.ofNullable(store.get(scanId));
+        Entry entry = entry(scanId);
+        return entry == null ? Optional.empty() : Optional.of(entry.result);
+    }
+
+    /**
+     * One page of a stored scan's findings matching {@code filter}, starting at
+     * {@code cursor} (a {@link FindingPage#getNextCursor()} value, or 0). Served
+     * from the {@link FindingIndex} built when the result was stored or loaded.
+     */
+    public Optional<FindingPage> findPage(String scanId, FindingFilter filter, int cursor, int limit) {
+        Entry entry = entry(scanId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.index.page(scanId, filter, cursor, limit));
+    }
+
+    public synchronized boolean contains(String scanId) {
+        return memory.containsKey(scanId) || (spill != null && spill.contains(scanId));
+    }
+
+    /**
+     * Whether the scan's findings were streamed and not kept (see
+     * {@link ScanResult#isFindingsStreamed()}), so they cannot be replayed. A
+     * spilled result answers from the segment index without being read back.
+     */
+    public synchronized boolean isStreamOnly(String scanId) {
+        Entry entry = memory.get(scanId);
+        if (entry != null) {
+            return entry.result.isFindingsStreamed();
+        }
+        return spill != null && spill.isFindingsStreamed(scanId);
+    }
+
+    /**
+     * Hands every finding of a stored scan to {@code sink}, in order, without
+     * promoting a spilled result into memory: the spilled record is parsed
+     * token by token, so only one finding is materialized at a time. Returns
+     * false when the scan is unknown.
+     */
+    public boolean forEachFinding(String scanId, Consumer<Finding> sink) {
+        List<Finding> held = null;
+        synchronized (this) {
+            Entry entry = memory.get(scanId);
+            if (entry != null) {
+                entry.lastAccess = Instant.now();
+                held = entry.result.getFindings();
+            }
+        }
+        if (held != null) {
+            held.forEach(sink);
+            return true;
+        }
+        byte[] payload = readSpilled(scanId);
+        if (payload == null) {
+            return false;
+        }
+        try (JsonParser parser = spilledParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("findings".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.accept(mapper.readValue(parser, Finding.class));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return true;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read stored scan " + scanId, ex);
+        }
+    }
+
+    private byte[] readSpilled(String scanId) {
+        if (spill == null) {
+            return null;
+        }
+        try {
+            return spill.read(scanId);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private JsonParser spilledParser(byte[] payload) throws IOException {
+        return mapper.getFactory().createParser(new GZIPInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    /** Number of results currently held in memory. */
+    public synchronized int size() {
+        return memory.size();
+    }
+
+    /** Number of results held in the spill log. */
+    public synchronized int spilledCount() {
+        return spill == null ? 0 : spill.size();
+    }
+
+    public void trackJob(ScanContext context) {
+        jobs.put(context.getScanId(), context);
+    }
+
+    public Optional<ScanContext> findJob(String scanId) {
+        return Optional.ofNullable(jobs.get(scanId));
+    }
+
+    public void pruneJobs(Instant finishedBefore) {
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(finishedBefore));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        synchronized (this) {
+            if (spill == null) {
+                return;
+            }
+            for (Map.Entry<String, Entry> entry : memory.entrySet()) {
+                spillIfAbsent(entry.getKey(), entry.getValue().result);
+            }
+            spill.close();
+        }
+    }
+
+    /**
+     * Scheduled eviction. No caller holds an entry here, so even the most
+     * recent one goes once idle; a failure must not cancel the following runs.
+     */
+    private void sweep() {
+        try {
+            evict(0);
+        } catch (RuntimeException ex) {
+            // Retried on the next run.
+        }
+    }
+
+    /**
+     * The memory entry for {@code scanId}, loading a spilled result back first.
+     * Only the lookups take the store lock: the gunzip, parse and indexing of a
+     * spilled result run outside it, once per id, and other callers for the
+     * same id wait for the first caller to finish.
+     */
+    private Entry entry(String scanId) {
+        Entry entry;
+        CompletableFuture<Entry> pending;
+        boolean loader = false;
+        synchronized (this) {
+            entry = memory.get(scanId);
+            if (entry != null) {
+                entry.lastAccess = Instant.now();
+                pending = null;
+            } else {
+                pending = loads.get(scanId);
+                if (pending == null) {
+                    pending = new CompletableFuture<>();
+                    loads.put(scanId, pending);
+                    loader = true;
+                }
+            }
+        }
+        if (entry != null) {
+            evict();
+            return entry;
+        }
+        if (!loader) {
+            return pending.join();
+        }
+        Entry loaded = null;
+        try {
+            byte[] payload = readSpilled(scanId);
+            ScanResult result = payload == null ? null : load(payload);
+            loaded = result == null ? null : new Entry(result);
+        } finally {
+            synchronized (this) {
+                loads.remove(scanId);
+                if (loaded != null) {
+                    Entry current = memory.putIfAbsent(scanId, loaded);
+                    if (current != null) {
+                        loaded = current;
+                    } else {
+                        heldFindings += loaded.findings;
+                    }
+                }
+            }
+            pending.complete(loaded);
+        }
+        if (loaded != null) {
+            evict();
+        }
+        return loaded;
+    }
+
+    /**
+     * Moves entries past the size, findings or idle limits to the spill log.
+     * They are picked under the lock, serialized and written outside it, and
+     * only dropped from memory once written, so readers never miss them.
+     */
+    private void evict() {
+        // Never evict the most recently used entry: the caller is about to hand it out.
+        evict(1);
+    }
+
+    /** As {@link #evict()}, always keeping the {@code keep} most recently used entries. */
+    private void evict(int keep) {
+        List<Map.Entry<String, Entry>> victims;
+        synchronized (this) {
+            victims = evictionCandidates(Instant.now(), keep);
+        }
+        if (victims.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> spilled = new ArrayList<>();
+        for (Map.Entry<String, Entry> victim : victims) {
+            if (spillIfAbsent(victim.getKey(), victim.getValue().result)) {
+                spilled.add(victim);
+            }
+        }
+        synchronized (this) {
+            for (Map.Entry<String, Entry> victim : victims) {
+                victim.getValue().evicting = false;
+            }
+            for (Map.Entry<String, Entry> victim : spilled) {
+                if (memory.remove(victim.getKey(), victim.getValue())) {
+                    heldFindings -= victim.getValue().findings;
+                }
+            }
+        }
+    }
+
+    /** Eldest first, skipping entries another caller is already spilling. */
+    private List<Map.Entry<String, Entry>> evictionCandidates(Instant now, int keep) {
+        Instant idleCutoff = now.minus(maxAge);
+        int remaining = memory.size();
+        long remainingFindings = heldFindings;
+        List<Map.Entry<String, Entry>> victims = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+        while (it.hasNext() && remaining > keep) {
+            Map.Entry<String, Entry> eldest = it.next();
+            Entry entry = eldest.getValue();
+            boolean overCapacity = remaining > maxEntries || remainingFindings > maxFindings;
+            if (!overCapacity && !entry.lastAccess.isBefore(idleCutoff)) {
+                break;
+            }
+            if (!entry.evicting) {
+                entry.evicting = true;
+                victims.add(Map.entry(eldest.getKey(), entry));
+            }
+            remaining--;
+            remainingFindings -= entry.findings;
+        }
+        return victims;
+    }
+
+    /**
+     * Writes the result to the spill log unless a copy is already there. Results
+     * are immutable once saved, so an existing record is never rewritten. Returns
+     * false when the result could not be persisted and must stay in memory.
+     */
+    private boolean spillIfAbsent(String scanId, ScanResult result) {
+        if (spill == null) {
+            return true;
+        }
+        if (spill.contains(scanId)) {
+            return true;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                mapper.writeValue(out, result);
+            }
+            spill.append(scanId, bytes.toByteArray(), result.isFindingsStreamed());
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private ScanResult load(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return mapper.readValue(in, ScanResult.class);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static int findingCount(ScanResult result) {
+        return result.getFindings() == null ? 0 : result.getFindings().size();
+    }
+
+    private static final class Entry {
+        private final ScanResult result;
+        private final int findings;
+        private final FindingIndex index;
+        private Instant lastAccess = Instant.now();
+        private boolean evicting;
+
+        private Entry(ScanResult result) {
+            this.result = result;
+            this.findings = findingCount(result);
+            this.index = new FindingIndex(result.getFindings() == null ? List.of() : result.getFindings());
+        }
     }
 }
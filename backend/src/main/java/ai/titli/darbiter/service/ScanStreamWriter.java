@@ -0,0 +1,99 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.Finding;
+import ai.titli.darbiter.model.PathScanRequest;
+import ai.titli.darbiter.model.ScanResult;
+import ai.titli.darbiter.model.ScanStreamEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes scan findings as NDJSON ({@link ScanStreamEvent} per line), either
+ * live while a path scan runs or from a stored scan. Output is flushed after
+ * every file (live) or every {@value #FLUSH_EVERY} findings (stored) so
+ * clients see progress on long scans.
+ */
+@Component
+public class ScanStreamWriter {
+    private static final int FLUSH_EVERY = 1000;
+
+    private final ScanService scanService;
+    private final ScanStore scanStore;
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+
+    public ScanStreamWriter(ScanService scanService, ScanStore scanStore, ObjectMapper mapper) {
+        this.scanService = scanService;
+        this.scanStore = scanStore;
+        this.mapper = mapper;
+        this.writer = mapper.writerFor(ScanStreamEvent.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void writeScan(PathScanRequest request, OutputStream out) throws IOException {
+        ScanContext context = new ScanContext();
+        try (JsonGenerator generator = newGenerator(out)) {
+            write(generator, ScanStreamEvent.started(context.getScanId()));
+            generator.flush();
+            ScanResult result;
+            try {
+                result = scanService.streamPath(request, context, findings -> {
+                    try {
+                        for (Finding finding : findings) {
+                            write(generator, ScanStreamEvent.finding(finding));
+                        }
+                        generator.flush();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            } catch (RuntimeException ex) {
+                write(generator, ScanStreamEvent.error(context.getScanId(), ex.getMessage()));
+                return;
+            }
+            write(generator, ScanStreamEvent.summary(result));
+        }
+    }
+
+    public void writeStored(String scanId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = newGenerator(out)) {
+            int[] pending = {0};
+            try {
+                scanStore.forEachFinding(scanId, finding -> {
+                    try {
+                        write(generator, ScanStreamEvent.finding(finding));
+                        if (++pending[0] == FLUSH_EVERY) {
+                            pending[0] = 0;
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private JsonGenerator newGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void write(JsonGenerator generator, ScanStreamEvent event) throws IOException {
+        writer.writeValue(generator, event);
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,196 @@
+package ai.titli.darbiter.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal forward-only reader for ustar/GNU/pax tar streams. Long names from
+ * GNU {@code L} entries and pax {@code path} records are applied to the entry
+ * that follows; other metadata is ignored.
+ */
+final class TarReader {
+    private static final int BLOCK = 512;
+    private static final int MAX_META_BYTES = 1 << 20;
+
+    private final InputStream in;
+    private String name;
+    private boolean file;
+    private long remaining;
+    private long padding;
+
+    TarReader(InputStream in) {
+        this.in = in;
+    }
+
+    /** Skips the rest of the current entry and reads the next header; false at end of archive. */
+    boolean next() throws IOException {
+        skipFully(remaining + padding);
+        remaining = 0;
+        padding = 0;
+        String longName = null;
+        while (true) {
+            byte[] header = in.readNBytes(BLOCK);
+            if (header.length < BLOCK || isZero(header)) {
+                return false;
+            }
+            long size = parseSize(header);
+            byte type = header[156];
+            if (type == 'L' || type == 'x' || type == 'g') {
+                if (size > MAX_META_BYTES) {
+                    throw new IOException("Tar metadata entry too large: " + size);
+                }
+                byte[] data = in.readNBytes((int) size);
+                skipFully(pad(size));
+                if (type == 'L') {
+                    longName = cString(data, 0, data.length);
+                } else if (type == 'x') {
+                    String path = paxPath(data);
+                    longName = path != null ? path : longName;
+                }
+                continue;
+            }
+            name = longName != null ? longName : headerName(header);
+            file = type == '0' || type == 0 || type == '7';
+            remaining = size;
+            padding = pad(size);
+            return true;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /** Whether the current entry is a regular file (not a directory, link or device). */
+    boolean isFile() {
+        return file;
+    }
+
+    /** The current entry's data; closing it does not close the archive. */
+    InputStream content() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("Truncated tar entry: " + name);
+                }
+                remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = in.read(b, off, (int) Math.min(len, remaining));
+                if (read < 0) {
+                    throw new IOException("Truncated tar entry: " + name);
+                }
+                remaining -= read;
+                return read;
+            }
+        };
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    return;
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static long pad(long size) {
+        return (BLOCK - size % BLOCK) % BLOCK;
+    }
+
+    private static String headerName(byte[] header) {
+        String name = cString(header, 0, 100);
+        boolean ustar = cString(header, 257, 5).equals("ustar");
+        String prefix = ustar ? cString(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    /** Octal size, or GNU base-256 when the high bit of the first byte is set. */
+    private static long parseSize(byte[] header) throws IOException {
+        if ((header[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xFF);
+            }
+            return size;
+        }
+        long size = 0;
+        for (int i = 124; i < 136; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (size > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Invalid tar header");
+            }
+            size = size * 8 + (b - '0');
+        }
+        return size;
+    }
+
+    /** Pax records are {@code "<length> <key>=<value>\n"}. */
+    private static String paxPath(byte[] data) {
+        int pos = 0;
+        while (pos < data.length) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+            if (length <= 0 || pos + length > data.length) {
+                return null;
+            }
+            String record = new String(data, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            pos += length;
+        }
+        return null;
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isZero(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package ai.titli.darbiter.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Opens text files for line scanning under a per-scan byte budget. Depending on
+ * {@code darbiter.detection.reader} files are read through a buffered stream,
+ * decoded from memory-mapped chunks, or ({@code auto}) mapped once they exceed
+ * the mmap threshold. Formats parsed as a whole are read once into a buffer
+ * with the same mapping policy.
+ */
+@Component
+public class TextFileReaderFactory {
+    private final String mode;
+    private final long mmapThreshold;
+    private final int mmapChunkBytes;
+    private final long defaultByteBudget;
+
+    public TextFileReaderFactory(@Value("${darbiter.detection.reader:auto}") String mode,
+                                 @Value("${darbiter.detection.mmap-threshold:8388608}") long mmapThreshold,
+                                 @Value("${darbiter.detection.mmap-chunk-bytes:67108864}") int mmapChunkBytes,
+                                 @Value("${darbiter.scan.max-bytes-per-file:2000000}") long defaultByteBudget) {
+        this.mode = mode.toLowerCase(Locale.ROOT);
+        this.mmapThreshold = mmapThreshold;
+        this.mmapChunkBytes = mmapChunkBytes;
+        this.defaultByteBudget = defaultByteBudget;
+    }
+
+    /**
+     * Resolves a requested per-file byte budget: {@code null} means the configured
+     * default and any value {@code <= 0} means unlimited.
+     */
+    public long resolveByteBudget(Long requested) {
+        return requested == null ? defaultByteBudget : requested;
+    }
+
+    public Reader open(Path file, long byteBudget) throws IOException {
+        return open(file, byteBudget, StandardCharsets.UTF_8);
+    }
+
+    public Reader open(Path file, long byteBudget, Charset charset) throws IOException {
+        if (useMmap(file)) {
+            return new MappedFileReader(file, charset, byteBudget, mmapChunkBytes);
+        }
+        return open(Files.newInputStream(file), byteBudget, charset);
+    }
+
+    /** Decodes an already open stream, such as an upload, under the same byte budget. */
+    public Reader open(InputStream stream, long byteBudget, Charset charset) {
+        if (byteBudget > 0) {
+            stream = new BoundedInputStream(stream, byteBudget);
+        }
+        return new InputStreamReader(stream, charset);
+    }
+
+    /**
+     * Reads a whole file once for formats that are parsed as a whole: mapped when
+     * {@link #open(Path, long)} would map it, otherwise copied into a byte array.
+     * At most {@code maxBytes} are kept; the rest is skipped and the source is
+     * marked truncated.
+     */
+    public ContentSource buffer(Path file, int maxBytes) throws IOException {
+        String name = file.getFileName().toString();
+        if (!useMmap(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                return ContentSource.read(name, inputStream, maxBytes);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long length = Math.min(size, maxBytes);
+            return ContentSource.of(name, channel.map(FileChannel.MapMode.READ_ONLY, 0, length), length < size);
+        }
+    }
+
+    private boolean useMmap(Path file) throws IOException {
+        return switch (mode) {
+            case "mmap" -> true;
+            case "stream" -> false;
+            case "auto" -> Files.size(file) >= mmapThreshold;
+            default -> throw new IllegalStateException("Unknown reader mode: " + mode);
+        };
+    }
+}
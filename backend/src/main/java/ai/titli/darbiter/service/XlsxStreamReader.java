@@ -0,0 +1,153 @@
+package ai.titli.darbiter.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams the cells of an XLSX workbook through POI's SAX event model instead
+ * of building an {@code XSSFWorkbook}, so heap use is bounded by the shared
+ * strings table rather than the number of cells. Cell values are formatted the
+ * way Excel displays them.
+ */
+final class XlsxStreamReader {
+
+    interface CellHandler {
+        /**
+         * Receives one non-empty cell; rows and columns are zero-based. Returning
+         * {@code false} stops reading the workbook.
+         */
+        boolean onCell(String sheetName, int row, int column, String value);
+
+        default void onRowEnd(String sheetName, int row) {
+        }
+    }
+
+    private XlsxStreamReader() {
+    }
+
+    /**
+     * Reads every sheet in workbook order, skipping the rest of a sheet once its
+     * zero-based row index exceeds {@code maxRowsPerSheet}. A file is opened in
+     * place; in-memory content is unpacked by POI from the source's stream.
+     * The package is only read, so it is reverted rather than closed: close()
+     * would try to save it and warns for read-only packages.
+     */
+    static void read(ContentSource source, int maxRowsPerSheet, CellHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = open(source);
+        } catch (OpenXML4JException ex) {
+            throw new IOException("Invalid XLSX file: " + source.getName(), ex);
+        }
+        try {
+            read(pkg, maxRowsPerSheet, handler);
+        } catch (OpenXML4JException ex) {
+            throw new IOException("Invalid XLSX file: " + source.getName(), ex);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private static OPCPackage open(ContentSource source) throws IOException, OpenXML4JException {
+        if (source.getFile() != null) {
+            return OPCPackage.open(source.getFile().toFile(), PackageAccess.READ);
+        }
+        try (InputStream inputStream = source.open()) {
+            return OPCPackage.open(inputStream);
+        }
+    }
+
+    private static void read(OPCPackage pkg, int maxRowsPerSheet, CellHandler handler)
+            throws IOException, OpenXML4JException {
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    SheetHandler contents = new SheetHandler(sheets.getSheetName(), maxRowsPerSheet, handler);
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, contents, formatter,
+                            false));
+                    try {
+                        parser.parse(new InputSource(sheet));
+                    } catch (SheetDone done) {
+                        if (done.stopWorkbook) {
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (SAXException | ParserConfigurationException ex) {
+            throw new IOException("Failed to parse XLSX sheet", ex);
+        }
+    }
+
+    private static final class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final String sheetName;
+        private final int maxRows;
+        private final CellHandler handler;
+        private int row;
+        private int nextColumn;
+
+        private SheetHandler(String sheetName, int maxRows, CellHandler handler) {
+            this.sheetName = sheetName;
+            this.maxRows = maxRows;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            if (rowNum > maxRows) {
+                throw new SheetDone(false);
+            }
+            row = rowNum;
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.onRowEnd(sheetName, rowNum);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = column + 1;
+            if (formattedValue == null || formattedValue.isEmpty()) {
+                return;
+            }
+            if (!handler.onCell(sheetName, row, column, formattedValue)) {
+                throw new SheetDone(true);
+            }
+        }
+    }
+
+    /** Unwinds the SAX parser once a budget is reached. */
+    private static final class SheetDone extends RuntimeException {
+        private final boolean stopWorkbook;
+
+        private SheetDone(boolean stopWorkbook) {
+            super(null, null, false, false);
+            this.stopWorkbook = stopWorkbook;
+        }
+    }
+}
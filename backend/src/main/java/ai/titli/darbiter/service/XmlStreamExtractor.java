@@ -0,0 +1,133 @@
+package ai.titli.darbiter.service;
+
+import ai.titli.darbiter.model.StructuredField;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flattens XML into {@link StructuredField}s with a single StAX pass: one
+ * field per attribute ({@code a.b.@id}) and one per element that has no child
+ * elements ({@code a.b.c}). Nesting is tracked with an explicit stack rather
+ * than recursion, and memory is bounded by the document depth plus one leaf's
+ * text. DTDs and external entities are disabled.
+ */
+final class XmlStreamExtractor {
+    /** Longest leaf text kept per element; the rest is dropped. */
+    private static final int MAX_TEXT_CHARS = 65_536;
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final int maxFields;
+    private final StringBuilder path = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+    private int[] pathLengths = new int[16];
+    private int[] lines = new int[16];
+    private int[] columns = new int[16];
+    private boolean[] hasChildElement = new boolean[16];
+    private int depth;
+
+    XmlStreamExtractor(int maxFields) {
+        this.maxFields = maxFields;
+    }
+
+    List<StructuredField> extract(InputStream inputStream) throws IOException {
+        List<StructuredField> fields = new ArrayList<>();
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(inputStream);
+            while (reader.hasNext() && fields.size() < maxFields) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> startElement(reader, fields);
+                    case XMLStreamConstants.END_ELEMENT -> endElement(fields);
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        if (depth > 0 && !hasChildElement[depth - 1] && text.length() < MAX_TEXT_CHARS) {
+                            int length = Math.min(reader.getTextLength(), MAX_TEXT_CHARS - text.length());
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), length);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return fields;
+        } catch (XMLStreamException ex) {
+            throw new IOException("Failed to parse XML", ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing left to release.
+                }
+            }
+        }
+    }
+
+    private void startElement(XMLStreamReader reader, List<StructuredField> fields) {
+        if (depth > 0) {
+            hasChildElement[depth - 1] = true;
+        }
+        text.setLength(0);
+        if (depth == pathLengths.length) {
+            int capacity = depth * 2;
+            pathLengths = Arrays.copyOf(pathLengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            hasChildElement = Arrays.copyOf(hasChildElement, capacity);
+        }
+        pathLengths[depth] = path.length();
+        if (depth > 0) {
+            path.append('.');
+        }
+        appendName(reader.getPrefix(), reader.getLocalName());
+        Location location = reader.getLocation();
+        lines[depth] = location.getLineNumber();
+        columns[depth] = location.getColumnNumber();
+        hasChildElement[depth] = false;
+        int elementPathLength = path.length();
+        for (int i = 0; i < reader.getAttributeCount() && fields.size() < maxFields; i++) {
+            path.append(".@");
+            appendName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            fields.add(new StructuredField(path.toString(), reader.getAttributeValue(i), fields.size() + 1,
+                    lines[depth], columns[depth]));
+            path.setLength(elementPathLength);
+        }
+        depth++;
+    }
+
+    private void endElement(List<StructuredField> fields) {
+        depth--;
+        if (!hasChildElement[depth]) {
+            String value = text.toString().trim();
+            if (!value.isEmpty()) {
+                fields.add(new StructuredField(path.toString(), value, fields.size() + 1,
+                        lines[depth], columns[depth]));
+            }
+        }
+        text.setLength(0);
+        path.setLength(pathLengths[depth]);
+    }
+
+    private void appendName(String prefix, String localName) {
+        if (prefix != null && !prefix.isEmpty()) {
+            path.append(prefix).append(':');
+        }
+        path.append(localName);
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -755,13 +755,15 @@ export default function App() {
           <div className="section-header">
             <div>
               <p className="section-subtitle">
-                Recommended, human‑led remediation steps per finding.
+                Recommended, human‑led remediation steps per rule.
               </p>
             </div>
           </div>
         <div className="grid two">
           {(() => {
-            const raw = result?.remediation?.length
+            const raw = result?.remediationGroups?.length
+              ? result.remediationGroups
+              : result?.remediation?.length
               ? result.remediation
               : [
                   {
@@ -780,18 +782,22 @@ export default function App() {
               const existing = merged.get(key);
               const actions = Array.from(new Set(item.actions || []));
               if (!existing) {
-                merged.set(key, { label: item.label, actions });
+                merged.set(key, { label: item.label, actions, count: item.count });
               } else {
                 merged.set(key, {
                   label: existing.label || item.label,
-                  actions: Array.from(new Set([...(existing.actions || []), ...actions]))
+                  actions: Array.from(new Set([...(existing.actions || []), ...actions])),
+                  count: (existing.count || 0) + (item.count || 0) || undefined
                 });
               }
             }
 
             return Array.from(merged.values()).map((item, index) => (
               <div className="card" key={`remediation-${index}`}>
-                <strong>{item.label}</strong>
+                <strong>
+                  {item.label}
+                  {item.count ? ` (${item.count})` : ""}
+                </strong>
                 <div className="row">
                   {item.actions.map((action, actionIndex) => (
                     <span className="badge warning" key={`action-${index}-${actionIndex}`}>
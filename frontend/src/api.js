@@ -58,3 +58,17 @@ export function certificatePdfUrl(scanId) {
 export function summaryPdfUrl(scanId) {
   return `${BASE_URL}/summary/${scanId}/pdf`;
 }
+
+export async function fetchFindings(scanId, { category, severity, ruleId, pathPrefix, cursor, limit } = {}) {
+  const params = new URLSearchParams();
+  Object.entries({ category, severity, ruleId, pathPrefix, cursor, limit }).forEach(([key, value]) => {
+    if (value !== undefined && value !== null && value !== "") {
+      params.append(key, String(value));
+    }
+  });
+  const res = await fetch(`${BASE_URL}/scan/${scanId}/findings?${params}`);
+  if (!res.ok) {
+    throw new Error("Failed to load findings");
+  }
+  return res.json();
+}